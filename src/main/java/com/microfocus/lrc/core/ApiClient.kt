@@ -212,6 +212,8 @@ class ApiClient internal constructor(
         return this.serverConfiguration
     }
 
+    // requests could be sent concurrently, make sure only one client is created
+    @Synchronized
     private fun getOkhttpClient(): OkHttpClient {
         var c = this.okHttpClient
         if (c != null) {
@@ -16,6 +16,7 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import com.mitchellbosecke.pebble.PebbleEngine;
+import com.mitchellbosecke.pebble.loader.ClasspathLoader;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 
 import java.io.IOException;
@@ -25,15 +26,38 @@ import java.util.HashMap;
 import java.util.Map;
 
 public final class HTMLTemplate {
+    // one engine for the plugin's lifetime, templates are compiled on first use and cached by the engine
+    private static final PebbleEngine ENGINE = new PebbleEngine.Builder()
+            .loader(new ClasspathLoader(HTMLTemplate.class.getClassLoader()))
+            .methodAccessValidator((object, method) -> false)
+            .build();
+
     private HTMLTemplate() {
     }
 
-    public static String generateByPebble(final String template, final JsonObject data) throws IOException {
-        PebbleEngine engine = new PebbleEngine.Builder().methodAccessValidator(
-                (object, method) -> false
-        ).build();
-        PebbleTemplate compiledTemplate = engine.getLiteralTemplate(template);
+    /**
+     * @param templateName path of the template in the plugin's classpath, e.g. "trending_report/run_report.twig"
+     */
+    public static String generateByPebble(final String templateName, final JsonObject data) throws IOException {
+        Writer writer = new StringWriter();
+        generateByPebble(templateName, data, writer);
+
+        return writer.toString();
+    }
 
+    /**
+     * render the template straight to {@code writer}.
+     */
+    public static void generateByPebble(
+            final String templateName,
+            final JsonObject data,
+            final Writer writer
+    ) throws IOException {
+        PebbleTemplate compiledTemplate = ENGINE.getTemplate(templateName);
+        compiledTemplate.evaluate(writer, toContext(data));
+    }
+
+    private static Map<String, Object> toContext(final JsonObject data) {
         Map<String, Object> context = new HashMap<>();
         for (String key : data.keySet()) {
             JsonElement val = data.get(key);
@@ -50,10 +74,6 @@ public final class HTMLTemplate {
                 context.put(key, val.toString());
             }
         }
-
-        Writer writer = new StringWriter();
-        compiledTemplate.evaluate(writer, context);
-
-        return writer.toString();
+        return context;
     }
 }
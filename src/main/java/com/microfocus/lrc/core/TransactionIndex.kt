@@ -0,0 +1,119 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.core
+
+import com.microfocus.lrc.core.entity.TrendingDataWrapper
+import com.microfocus.lrc.core.entity.TrendingRun
+
+/**
+ * identity of a transaction across runs: transaction name and script name.
+ * the hash is computed once, keys are interned by [TransactionIndex] so each pair has one instance.
+ */
+class TransactionKey(val name: String?, val script: String?) {
+    private val hash: Int = 31 * (name?.hashCode() ?: 0) + (script?.hashCode() ?: 0)
+
+    override fun hashCode(): Int {
+        return hash
+    }
+
+    override fun equals(other: Any?): Boolean {
+        if (this === other) {
+            return true
+        }
+        if (other !is TransactionKey) {
+            return false
+        }
+        return hash == other.hash && name == other.name && script == other.script
+    }
+
+    override fun toString(): String {
+        return "$name - $script"
+    }
+}
+
+/**
+ * transactions of all runs grouped by [TransactionKey].
+ * each group keeps its transactions in the order of the runs and an index to
+ * the transaction of the previous run (the max run id smaller than the current one).
+ */
+class TransactionIndex(runs: List<TrendingRun>) {
+    class Group(val key: TransactionKey) {
+        val runs = ArrayList<TrendingRun>()
+        val transactions = ArrayList<TrendingDataWrapper.TransactionData>()
+        private var prev: IntArray? = null
+
+        internal fun add(run: TrendingRun, tx: TrendingDataWrapper.TransactionData) {
+            runs.add(run)
+            transactions.add(tx)
+        }
+
+        val size: Int
+            get() = runs.size
+
+        /**
+         * position of the transaction of the previous run, or -1 if there is none.
+         */
+        fun previousOf(i: Int): Int {
+            val arr = prev ?: buildPrevious().also { prev = it }
+            return arr[i]
+        }
+
+        private fun buildPrevious(): IntArray {
+            val arr = IntArray(runs.size) { -1 }
+            val order = (0 until runs.size).sortedBy { runs[it].data.runId }
+            for (p in 1 until order.size) {
+                val current = order[p]
+                val before = order[p - 1]
+                arr[current] = if (runs[before].data.runId < runs[current].data.runId) before else arr[before]
+            }
+            return arr
+        }
+    }
+
+    private val interned = HashMap<TransactionKey, TransactionKey>()
+    private val groupMap = LinkedHashMap<TransactionKey, Group>()
+
+    init {
+        for (run in runs) {
+            for (tx in run.data.transactions ?: emptyList()) {
+                val key = this.intern(tx.name, tx.script)
+                groupMap.getOrPut(key) { Group(key) }.add(run, tx)
+            }
+        }
+    }
+
+    /**
+     * groups in the order their transactions first appear in the runs.
+     */
+    val groups: Collection<Group>
+        get() = groupMap.values
+
+    fun intern(name: String?, script: String?): TransactionKey {
+        val key = TransactionKey(name, script)
+        return interned.getOrPut(key) { key }
+    }
+
+    companion object {
+        /**
+         * index the transactions of a single run, the first one wins if a key is duplicated.
+         */
+        @JvmStatic
+        fun byKey(data: TrendingDataWrapper.TrendingData): Map<TransactionKey, TrendingDataWrapper.TransactionData> {
+            val map = HashMap<TransactionKey, TrendingDataWrapper.TransactionData>()
+            for (tx in data.transactions ?: emptyList()) {
+                map.putIfAbsent(TransactionKey(tx.name, tx.script), tx)
+            }
+            return map
+        }
+    }
+}
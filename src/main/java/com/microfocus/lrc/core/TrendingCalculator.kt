@@ -0,0 +1,457 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.core
+
+import com.microfocus.lrc.core.entity.*
+import jenkins.util.SystemProperties
+import java.math.BigDecimal
+import java.math.RoundingMode
+import java.util.concurrent.Callable
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.ForkJoinTask
+
+/**
+ * compute the trending model (run overviews and transaction trends) from the trending data of builds.
+ */
+class TrendingCalculator {
+    companion object {
+        /**
+         * max threads used to compute transaction groups, defaults to half of the cores
+         * so a large report doesn't take all the CPU of the controller.
+         */
+        const val PARALLELISM_PROPERTY = "com.microfocus.lrc.trending.parallelism"
+        private const val PARALLEL_MIN_GROUPS = 64
+
+        private val defaultPool: ForkJoinPool by lazy {
+            val cores = Runtime.getRuntime().availableProcessors()
+            val parallelism = SystemProperties.getInteger(PARALLELISM_PROPERTY, cores / 2)
+            ForkJoinPool(parallelism.coerceIn(1, cores))
+        }
+
+        /**
+         * @param runs trending data of the builds, latest first
+         * @param benchmark the fixed benchmark, used when [benchmarkId] is not null
+         * @param benchmarkId null means the benchmark is the previous run of each run
+         * @param logs the generator logs shown in the report
+         * @param pool transaction groups are computed in parallel on it when there are many of them,
+         * the result and the logs are in the same order as computed sequentially
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun calculate(
+            runs: List<TrendingRun>,
+            benchmark: TrendingDataWrapper.TrendingData,
+            benchmarkId: Int?,
+            trendingConfig: TrendingConfiguration,
+            logs: StringBuilder,
+            pool: ForkJoinPool = defaultPool
+        ): TrendingModel {
+            val metrics: MutableList<RunOverview> = runs.mapTo(ArrayList()) { getOverview(it) }
+
+            val index = TransactionIndex(runs)
+            val benchmarkIndex = TransactionIndex.byKey(benchmark)
+
+            val groups = index.groups.toList()
+            val compute = { group: TransactionIndex.Group ->
+                val groupLogs = StringBuilder()
+                val trend = calculateGroup(group, benchmark, benchmarkIndex, benchmarkId, trendingConfig, groupLogs)
+                Pair(trend, groupLogs)
+            }
+            val results = if (pool.parallelism <= 1 || groups.size < PARALLEL_MIN_GROUPS) {
+                groups.map(compute)
+            } else {
+                // groups are independent, they are split into chunks computed on the pool and joined in order
+                val chunkSize = (groups.size + pool.parallelism * 4 - 1) / (pool.parallelism * 4)
+                val tasks = groups.chunked(chunkSize).map { chunk ->
+                    ForkJoinTask.adapt(Callable { chunk.map(compute) })
+                }
+                pool.invoke(ForkJoinTask.adapt(Runnable { ForkJoinTask.invokeAll(tasks) }))
+                tasks.flatMap { it.join() }
+            }
+
+            val trts = ArrayList<TransactionTrendGroup>(results.size)
+            for ((trend, groupLogs) in results) {
+                trts.add(trend)
+                logs.append(groupLogs)
+            }
+
+            return TrendingModel(metrics, trts)
+        }
+
+        /**
+         * key of the thresholds, the model has to be fully recomputed when they change.
+         */
+        @JvmStatic
+        fun configKey(trendingConfig: TrendingConfiguration): String {
+            return listOf(
+                trendingConfig.trtAvgTholdImpr,
+                trendingConfig.trtAvgTholdMinorRegr,
+                trendingConfig.trtAvgTholdMajorRegr,
+                trendingConfig.trtPctlTholdImpr,
+                trendingConfig.trtPctlTholdMinorRegr,
+                trendingConfig.trtPctlTholdMajorRegr
+            ).joinToString(",")
+        }
+
+        /**
+         * full calculation, the result can be updated by [update] later.
+         */
+        @JvmStatic
+        fun calculateState(
+            runs: List<TrendingRun>,
+            benchmark: TrendingDataWrapper.TrendingData,
+            benchmarkId: Int?,
+            trendingConfig: TrendingConfiguration,
+            logs: StringBuilder
+        ): TrendingState {
+            return TrendingState(
+                configKey(trendingConfig),
+                benchmarkId,
+                runs.mapTo(ArrayList()) { it.buildNo },
+                runs.mapTo(ArrayList()) { it.data.runId },
+                calculate(runs, benchmark, benchmarkId, trendingConfig, logs)
+            )
+        }
+
+        /**
+         * update [state] in place to the columns [window] (build numbers, latest first):
+         * columns of the new builds are computed and inserted, the oldest columns out of the window are dropped.
+         * the cost is O(transactions) per new or dropped column.
+         *
+         * @param newRuns trending data of the builds in [window] which are not in [state] yet, latest first
+         * @param readRun reads the trending data of a build already in [state]
+         * @return false if the state can't be updated and has to be recalculated, [state] is not changed then.
+         */
+        @JvmStatic
+        fun update(
+            state: TrendingState,
+            window: List<Int>,
+            newRuns: List<TrendingRun>,
+            benchmark: TrendingDataWrapper.TrendingData,
+            benchmarkId: Int?,
+            trendingConfig: TrendingConfiguration,
+            readRun: (Int) -> TrendingDataWrapper.TrendingData?,
+            logs: StringBuilder
+        ): Boolean {
+            if (state.configKey != configKey(trendingConfig) || state.benchmarkId != benchmarkId) {
+                return false
+            }
+
+            // the window must be the new builds followed by the latest columns of the state
+            val newCount = newRuns.size
+            val kept = window.subList(newCount, window.size)
+            if (kept.isEmpty() || kept.size > state.buildNos.size || kept != state.buildNos.subList(0, kept.size)) {
+                return false
+            }
+            if (newRuns.map { it.buildNo } != window.subList(0, newCount)) {
+                return false
+            }
+            // for 'Previous' benchmark, a new run older than an existing one would change the existing trends
+            val maxRunId = state.runIds.maxOrNull() ?: 0
+            if (benchmarkId == null && newRuns.any { it.data.runId <= maxRunId }) {
+                return false
+            }
+            if (benchmarkId == null && newRuns.zipWithNext().any { (a, b) -> a.data.runId <= b.data.runId }) {
+                return false
+            }
+
+            val updater = StateUpdater(state, benchmark, benchmarkId, trendingConfig, readRun, logs)
+            for (run in newRuns.asReversed()) {
+                updater.addColumn(run)
+            }
+            while (state.buildNos.size > window.size) {
+                updater.dropOldestColumn()
+            }
+            updater.removeEmptyGroups()
+
+            return true
+        }
+
+        /**
+         * add the column of the fetched run to the state of [trendingUpdate], on the agent which fetched it.
+         * it's the same [update] the controller does when it generates the report, with the data sent along.
+         *
+         * @return the updated state, null if it has to be recalculated, the controller does it then.
+         */
+        @JvmStatic
+        fun addLatest(
+            trendingUpdate: TrendingUpdate,
+            wrapper: TrendingDataWrapper,
+            trendingConfig: TrendingConfiguration,
+            logs: StringBuilder
+        ): TrendingState? {
+            val data = wrapper.trendingData
+            if (data == null || data.transactions.isNullOrEmpty()) {
+                return null
+            }
+            val updated = update(
+                trendingUpdate.state,
+                trendingUpdate.window,
+                listOf(TrendingRun(trendingUpdate.buildNo, trendingUpdate.buildDate, data)),
+                wrapper.benchmark ?: data,
+                wrapper.benchmarkId,
+                trendingConfig,
+                { buildNo -> if (buildNo == trendingUpdate.buildNo) data else trendingUpdate.previousRuns[buildNo] },
+                logs
+            )
+            return if (updated) trendingUpdate.state else null
+        }
+
+        private class StateUpdater(
+            val state: TrendingState,
+            val benchmark: TrendingDataWrapper.TrendingData,
+            val benchmarkId: Int?,
+            val trendingConfig: TrendingConfiguration,
+            val readRun: (Int) -> TrendingDataWrapper.TrendingData?,
+            val logs: StringBuilder
+        ) {
+            private val groups = LinkedHashMap<TransactionKey, TransactionTrendGroup>()
+            // build number -> transactions of the run by key, read on demand
+            private val runTransactions = HashMap<Int, Map<TransactionKey, TrendingDataWrapper.TransactionData>>()
+            private val runData = HashMap<Int, TrendingDataWrapper.TrendingData?>()
+            private val benchmarkIndex by lazy { TransactionIndex.byKey(benchmark) }
+
+            init {
+                for (group in state.model.trt) {
+                    groups[TransactionKey(group.transactionName, group.scriptName)] = group
+                }
+            }
+
+            fun addColumn(run: TrendingRun) {
+                val runId = run.data.runId
+                logs.append(String.format("adding test run: %d%n", runId))
+                state.model.metrics.add(0, getOverview(run))
+                state.buildNos.add(0, run.buildNo)
+                state.runIds.add(0, runId)
+
+                val newCells = LinkedHashMap<TransactionKey, MutableList<TransactionTrend>>()
+                for (tx in run.data.transactions ?: emptyList()) {
+                    val key = TransactionKey(tx.name, tx.script)
+                    var benchmarkTx: TrendingDataWrapper.TransactionData? = benchmarkIndex[key]
+                    var benchmarkRunId = benchmark.runId
+                    if (benchmarkId == null) {
+                        // all the existing runs are older, the previous one is the one with max run id
+                        val prev = groups[key]?.trtDataArr?.maxByOrNull { it.runId }
+                        val prevTx = prev?.let { this.transactionOf(it.buildNo, key) }
+                        if (prev != null && prevTx != null) {
+                            benchmarkTx = prevTx
+                            benchmarkRunId = prev.runId
+                        } else {
+                            benchmarkTx = tx
+                            benchmarkRunId = runId
+                        }
+                    }
+                    newCells.getOrPut(key) { ArrayList() }
+                        .add(calculateTRT(run, benchmarkRunId, tx, benchmarkTx, trendingConfig))
+                }
+
+                // same order as a full calculation: groups of the latest run first
+                val trt = ArrayList<TransactionTrendGroup>(groups.size + newCells.size)
+                newCells.forEach { (key, cells) ->
+                    val group = groups.getOrPut(key) { TransactionTrendGroup(key.name, key.script, ArrayList()) }
+                    group.trtDataArr.addAll(0, cells)
+                    trt.add(group)
+                }
+                state.model.trt.forEach { group ->
+                    if (!newCells.containsKey(TransactionKey(group.transactionName, group.scriptName))) {
+                        trt.add(group)
+                    }
+                }
+                state.model.trt.clear()
+                state.model.trt.addAll(trt)
+            }
+
+            fun dropOldestColumn() {
+                val last = state.buildNos.size - 1
+                val buildNo = state.buildNos.removeAt(last)
+                val runId = state.runIds.removeAt(last)
+                state.model.metrics.removeAt(last)
+                logs.append(String.format("dropping test run: %d%n", runId))
+
+                for ((key, group) in groups) {
+                    val cells = group.trtDataArr
+                    if (!cells.removeIf { it.buildNo == buildNo } || benchmarkId != null) {
+                        continue
+                    }
+                    // the run compared to the dropped one now compares to the max smaller run left, or itself
+                    val next = cells.filter { it.runId > runId }.minByOrNull { it.runId } ?: continue
+                    val prev = cells.filter { it.runId < next.runId }.maxByOrNull { it.runId }
+                    val nextTx = this.transactionOf(next.buildNo, key) ?: continue
+                    val prevTx = prev?.let { this.transactionOf(it.buildNo, key) }
+                    val nextData = this.dataOf(next.buildNo) ?: continue
+                    val recalculated = calculateTRT(
+                        TrendingRun(next.buildNo, "", nextData),
+                        if (prev == null || prevTx == null) next.runId else prev.runId,
+                        nextTx,
+                        prevTx ?: nextTx,
+                        trendingConfig
+                    )
+                    cells[cells.indexOf(next)] = recalculated
+                }
+            }
+
+            fun removeEmptyGroups() {
+                state.model.trt.removeIf { it.trtDataArr.isEmpty() }
+            }
+
+            private fun dataOf(buildNo: Int): TrendingDataWrapper.TrendingData? {
+                return runData.getOrPut(buildNo) { readRun(buildNo) }
+            }
+
+            private fun transactionOf(buildNo: Int, key: TransactionKey): TrendingDataWrapper.TransactionData? {
+                val transactions = runTransactions.getOrPut(buildNo) {
+                    val data = this.dataOf(buildNo)
+                    if (data == null) emptyMap() else TransactionIndex.byKey(data)
+                }
+                return transactions[key]
+            }
+        }
+
+        private fun calculateGroup(
+            group: TransactionIndex.Group,
+            benchmark: TrendingDataWrapper.TrendingData,
+            benchmarkIndex: Map<TransactionKey, TrendingDataWrapper.TransactionData>,
+            benchmarkId: Int?,
+            trendingConfig: TrendingConfiguration,
+            logs: StringBuilder
+        ): TransactionTrendGroup {
+            val key = group.key
+            logs.append(
+                String.format("processing transaction group: %1\$s - %2\$s%n", key.name, key.script)
+            )
+            // the fixed benchmark is the same for the whole group
+            val benchmarkTx = benchmarkIndex[key]
+
+            val trtDataArr = ArrayList<TransactionTrend>(group.size)
+            for (i in 0 until group.size) {
+                val run = group.runs[i]
+                val tx = group.transactions[i]
+                val runId = run.data.runId
+                logs.append(String.format("\t\tprocessing test run: %d%n", runId))
+                var benchmarkTrans: TrendingDataWrapper.TransactionData? = benchmarkTx
+                var benchmarkRunId: Int = benchmark.runId
+                if (benchmarkId == null) {
+                    logs.append("\t\t\t\tbenchmark is set to 'Previous'\n")
+                    val prev = group.previousOf(i)
+                    if (prev != -1) {
+                        benchmarkTrans = group.transactions[prev]
+                        benchmarkRunId = group.runs[prev].data.runId
+                        logs.append("\t\t\t\tbenchmark found: testrun#$benchmarkRunId")
+                    } else {
+                        logs.append("\t\t\t\tbenchmark not found: use the run itself.\n")
+                        benchmarkTrans = tx
+                        benchmarkRunId = runId
+                    }
+                } else {
+                    logs.append("\t\t\t\tbenchmark is $benchmarkId\n")
+                    if (benchmarkTrans == null) {
+                        logs.append(
+                            String.format(
+                                "\t\t\t\tcannot find benchmark for %1\$s - %2\$s%n",
+                                key.name,
+                                key.script
+                            )
+                        )
+                    }
+                }
+
+                trtDataArr.add(calculateTRT(run, benchmarkRunId, tx, benchmarkTrans, trendingConfig))
+            }
+            return TransactionTrendGroup(key.name, key.script, trtDataArr)
+        }
+
+        private fun getOverview(run: TrendingRun): RunOverview {
+            val trendingData = run.data
+            return RunOverview(
+                trendingData.runId,
+                run.buildNo,
+                safeNumber(trendingData.avgHits),
+                safeNumber(trendingData.avgThroughput),
+                safeNumber(trendingData.errorsPerSec),
+                safeNumber(trendingData.duration),
+                safeNumber(trendingData.initDuration.toDouble()),
+                trendingData.vusers,
+                safeNumber((trendingData.totalTxPassed + trendingData.totalTxFailed).toDouble() / trendingData.duration),
+                trendingData.totalTxPassed,
+                trendingData.totalTxFailed,
+                trendingData.status,
+                run.buildDate
+            )
+        }
+
+        private fun calculateTRT(
+            run: TrendingRun,
+            benchmarkRunId: Int,
+            transaction: TrendingDataWrapper.TransactionData,
+            benchmarkTrans: TrendingDataWrapper.TransactionData?,
+            trendingConfig: TrendingConfiguration
+        ): TransactionTrend {
+            //use itself as benchmark if no match (same script/transaction) benchmark is found.
+            val benchmarkTx = benchmarkTrans ?: transaction
+            val runId = run.data.runId
+
+            val avgTrend: Double = calculateTrend(transaction.avg, benchmarkTx.avg)
+            val avgTrendCalc = String.format(
+                "(%1\$f - %3\$f) / %3\$f",
+                transaction.avg,  //%1
+                runId,  //%2
+                benchmarkTx.avg,  //%3
+                benchmarkRunId //%4
+            )
+            val ninetiethTrend: Double = calculateTrend(transaction.nintieth, benchmarkTx.nintieth)
+            val ninetiethTrendCalc = String.format(
+                "(%1\$f - %3\$f) / %3\$f",
+                transaction.nintieth,  //%1
+                runId,  //%2
+                benchmarkTx.nintieth,  //%3
+                benchmarkRunId //%4
+            )
+
+            return TransactionTrend(
+                runId,
+                run.buildNo,
+                run.data.percentile,
+                round(transaction.avg, 3),
+                round(transaction.nintieth, 3),
+                round(avgTrend, 0),
+                avgTrend < trendingConfig.trtAvgTholdImpr * -1,
+                avgTrend < trendingConfig.trtAvgTholdMajorRegr && avgTrend > trendingConfig.trtAvgTholdMinorRegr,
+                avgTrend > trendingConfig.trtAvgTholdMajorRegr,
+                round(ninetiethTrend, 0),
+                ninetiethTrend < trendingConfig.trtPctlTholdImpr * -1,
+                ninetiethTrend < trendingConfig.trtPctlTholdMajorRegr
+                        && ninetiethTrend > trendingConfig.trtPctlTholdMinorRegr,
+                ninetiethTrend > trendingConfig.trtPctlTholdMajorRegr,
+                avgTrendCalc,
+                ninetiethTrendCalc,
+                transaction.passed.toInt(),
+                transaction.failed.toInt()
+            )
+        }
+
+        private fun calculateTrend(a: Double, b: Double): Double {
+            return safeNumber((a - b) / b * 100)
+        }
+
+        private fun round(value: Double, scale: Int): BigDecimal {
+            return BigDecimal(safeNumber(value)).setScale(scale, RoundingMode.HALF_UP)
+        }
+
+        private fun safeNumber(value: Double): Double {
+            if (java.lang.Double.isInfinite(value) || java.lang.Double.isNaN(value)) {
+                return 0.0
+            }
+            return value
+        }
+    }
+}
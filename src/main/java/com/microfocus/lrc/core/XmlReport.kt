@@ -14,127 +14,170 @@ package com.microfocus.lrc.core
 
 import com.microfocus.lrc.core.entity.LoadTestRun
 import com.microfocus.lrc.core.entity.TestRunStatus
-import org.w3c.dom.Document
-import org.w3c.dom.Element
-import java.io.StringWriter
-import java.nio.charset.StandardCharsets
-import javax.xml.parsers.DocumentBuilderFactory
-import javax.xml.transform.OutputKeys
-import javax.xml.transform.TransformerFactory
-import javax.xml.transform.dom.DOMSource
-import javax.xml.transform.stream.StreamResult
+import com.microfocus.lrc.core.entity.TestRunTransactionsResponse
+import java.io.ByteArrayOutputStream
+import java.io.OutputStream
+import javax.xml.stream.XMLOutputFactory
+import javax.xml.stream.XMLStreamWriter
 
 class XmlReport {
     companion object {
+        private const val RUN_CLASSNAME = "com.microfocus.lrc.Test"
+        private const val SLA_FAILED = "FAILED"
+
+        private val outputFactory: XMLOutputFactory = XMLOutputFactory.newInstance()
+
+        @JvmStatic
         @Throws(Exception::class)
         fun write(
             testRun: LoadTestRun,
             reportUrl: String,
             dashboardUrl: String,
         ): ByteArray {
+            return write(testRun, reportUrl, dashboardUrl, null)
+        }
 
-            val xml =
-                DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument()
+        @JvmStatic
+        @Throws(Exception::class)
+        fun write(
+            testRun: LoadTestRun,
+            reportUrl: String,
+            dashboardUrl: String,
+            transactions: Array<TestRunTransactionsResponse>?,
+        ): ByteArray {
+            val stream = ByteArrayOutputStream()
+            write(stream, testRun, reportUrl, dashboardUrl, transactions)
+            return stream.toByteArray()
+        }
+
+        /**
+         * stream a JUnit XML report into [out], one testcase for the run itself
+         * and one testcase per transaction. [out] is not closed.
+         */
+        @JvmStatic
+        @Throws(Exception::class)
+        fun write(
+            out: OutputStream,
+            testRun: LoadTestRun,
+            reportUrl: String,
+            dashboardUrl: String,
+            transactions: Array<TestRunTransactionsResponse>?,
+        ) {
+            val txArr = transactions ?: emptyArray()
             val isFailure: Boolean = TestRunStatus.PASSED.statusName != testRun.detailedStatus
+            var failures = if (isFailure) 1 else 0
+            for (tx in txArr) {
+                if (isSlaFailed(tx)) {
+                    failures += 1
+                }
+            }
+
+            val xml = outputFactory.createXMLStreamWriter(out, "UTF-8")
+            xml.writeStartDocument("UTF-8", "1.0")
+            newLine(xml)
+
+            xml.writeStartElement("testsuite")
+            xml.writeAttribute("name", testRun.loadTest.name)
+            xml.writeAttribute("tests", (txArr.size + 1).toString())
+            xml.writeAttribute("failures", failures.toString())
+            newLine(xml)
 
-            val testsuite = xml.createElement("testsuite")
-            testsuite.setAttribute("name", testRun.loadTest.name)
-            testsuite.setAttribute("tests", "1")
-            testsuite.setAttribute("failures", if (isFailure) "1" else "0")
-            xml.appendChild(testsuite)
-
-            val properties = xml.createElement("properties")
-
-            val pStormRunnerLoad: Element = generatePropertyElement(
-                "generator",
-                "LoadRunner Cloud",
-                xml,
-                false
-            )
-            properties.appendChild(pStormRunnerLoad)
-            val pTestId: Element = generatePropertyElement(
-                "testId",
-                testRun.loadTest.id.toString(),
-                xml,
-                false
-            )
-            properties.appendChild(pTestId)
-            val pRunId: Element = generatePropertyElement(
-                "runId",
-                testRun.id.toString(),
-                xml,
-                false
-            )
-            properties.appendChild(pRunId)
-            val pStatusDesc: Element = generatePropertyElement(
-                "statusDescription",
-                testRun.status,
-                xml,
-                true
-            )
-            properties.appendChild(pStatusDesc)
+            xml.writeStartElement("properties")
+            newLine(xml)
+            writeProperty(xml, "generator", "LoadRunner Cloud", false)
+            writeProperty(xml, "testId", testRun.loadTest.id.toString(), false)
+            writeProperty(xml, "runId", testRun.id.toString(), false)
+            writeProperty(xml, "statusDescription", testRun.status, true)
             if (testRun.testRunCompletelyEnded()) {
-                val pReport: Element = generatePropertyElement(
-                    "reportUrl",
-                    reportUrl,
-                    xml,
-                    false
-                )
-                val pDashBoard: Element = generatePropertyElement(
-                    "dashboardUrl",
-                    dashboardUrl,
-                    xml,
-                    false
-                )
-                properties.appendChild(pReport)
-                properties.appendChild(pDashBoard)
+                writeProperty(xml, "reportUrl", reportUrl, false)
+                writeProperty(xml, "dashboardUrl", dashboardUrl, false)
             }
-            testsuite.appendChild(properties)
+            xml.writeEndElement()
+            newLine(xml)
 
             var time = 0.0
             if (testRun.startTime != -1L && testRun.endTime != -1L && testRun.endTime > testRun.startTime) {
                 time = (testRun.endTime - testRun.startTime) / 1000.0
             }
-            val testcase = xml.createElement("testcase")
-            testcase.setAttribute("name", testRun.loadTest.name)
-            testcase.setAttribute("status", testRun.detailedStatus)
-            testcase.setAttribute("classname", "com.microfocus.lrc.Test")
-            testcase.setAttribute("time", String.format("%.2f", time))
-            testsuite.appendChild(testcase)
-
+            xml.writeStartElement("testcase")
+            xml.writeAttribute("name", testRun.loadTest.name)
+            xml.writeAttribute("status", testRun.detailedStatus)
+            xml.writeAttribute("classname", RUN_CLASSNAME)
+            xml.writeAttribute("time", String.format("%.2f", time))
             if (isFailure) {
-                val failureEle = xml.createElement("failure")
-                failureEle.setAttribute("message", "Test run status is ${testRun.detailedStatus}")
-                failureEle.setAttribute("type", testRun.detailedStatus)
-                testcase.appendChild(failureEle)
+                writeFailure(xml, "Test run status is ${testRun.detailedStatus}", testRun.detailedStatus)
             }
+            xml.writeEndElement()
+            newLine(xml)
 
-            val source = DOMSource(xml)
+            for (tx in txArr) {
+                writeTransaction(xml, tx)
+            }
 
-            val trans2Str = TransformerFactory.newInstance().newTransformer()
-            trans2Str.setOutputProperty(OutputKeys.ENCODING, "UTF-8")
-            trans2Str.setOutputProperty(OutputKeys.INDENT, "yes")
+            xml.writeEndElement()
+            newLine(xml)
+            xml.writeEndDocument()
+            xml.flush()
+            xml.close()
+        }
 
-            val sw = StringWriter()
-            trans2Str.transform(source, StreamResult(sw))
+        private fun writeTransaction(xml: XMLStreamWriter, tx: TestRunTransactionsResponse) {
+            // avgTRT is already in seconds, which is what JUnit expects for "time"
+            val avg = tx.avgTRT.toString()
+            xml.writeStartElement("testcase")
+            xml.writeAttribute("name", orEmpty(tx.name))
+            xml.writeAttribute("classname", orEmpty(tx.scriptName))
+            xml.writeAttribute("time", avg)
+            xml.writeAttribute("slaStatus", orEmpty(tx.slaStatus))
+            xml.writeAttribute("avgTRT", avg)
+            xml.writeAttribute("percentileTRT", tx.percentileTRT.toString())
+            xml.writeAttribute("minTRT", tx.minTRT.toString())
+            xml.writeAttribute("maxTRT", tx.maxTRT.toString())
+            xml.writeAttribute("passed", tx.passed.toString())
+            xml.writeAttribute("failed", tx.failed.toString())
+            if (isSlaFailed(tx)) {
+                writeFailure(xml, "SLA status is ${tx.slaStatus}", tx.slaStatus)
+            }
+            xml.writeEndElement()
+            newLine(xml)
+        }
+
+        private fun isSlaFailed(tx: TestRunTransactionsResponse): Boolean {
+            return SLA_FAILED.equals(orEmpty(tx.slaStatus), ignoreCase = true)
+        }
 
-            return sw.buffer.toString().toByteArray(StandardCharsets.UTF_8)
+        // fields parsed by Gson could be null even though they are declared as non-null
+        private fun orEmpty(value: String?): String {
+            return value ?: ""
         }
 
-        private fun generatePropertyElement(
+        private fun writeFailure(xml: XMLStreamWriter, message: String, type: String) {
+            xml.writeEmptyElement("failure")
+            xml.writeAttribute("message", message)
+            xml.writeAttribute("type", type)
+        }
+
+        private fun writeProperty(
+            xml: XMLStreamWriter,
             name: String,
             value: String,
-            xml: Document,
             valueInContent: Boolean
-        ): Element {
-            val pReport = xml.createElement("property")
-            pReport.setAttribute("name", name)
+        ) {
             if (valueInContent) {
-                pReport.textContent = value
+                xml.writeStartElement("property")
+                xml.writeAttribute("name", name)
+                xml.writeCharacters(value)
+                xml.writeEndElement()
             } else {
-                pReport.setAttribute("value", value)
+                xml.writeEmptyElement("property")
+                xml.writeAttribute("name", name)
+                xml.writeAttribute("value", value)
             }
-            return pReport
+            newLine(xml)
+        }
+
+        private fun newLine(xml: XMLStreamWriter) {
+            xml.writeCharacters("\n")
         }
     }
 }
@@ -12,6 +12,7 @@
 
 package com.microfocus.lrc.core.entity
 
+import java.io.Serializable
 import kotlin.math.pow
 
 class TestRunResultsResponse(
@@ -26,10 +27,12 @@ class TestRunResultsResponse(
     val totalTransactionsPassed: Int,
     val totalTransactionsFailed: Int,
     val scriptErrors: Int,
-) {
+) : Serializable {
     constructor() : this("", "", 0, 0, "", "", "", 0, 0, 0, 0)
 
     companion object {
+        private const val serialVersionUID = 1L
+
         @JvmStatic
         fun rmThroughputUnit(withUnit: String): Double {
             val split = withUnit.split(" ")
@@ -90,4 +93,8 @@ class TestRunTransactionsResponse(
     val passed: Int,
     val failed: Int,
     val slaTrend: Float,
-)
+) : Serializable {
+    companion object {
+        private const val serialVersionUID = 1L
+    }
+}
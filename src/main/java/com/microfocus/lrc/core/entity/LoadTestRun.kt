@@ -27,6 +27,10 @@ class LoadTestRun(
     var isTerminated: Boolean = false
     val reports: MutableMap<String, Int> = mutableMapOf()
     val reportsByteArray: MutableMap<String, ByteArray> = mutableMapOf()
+    // transactions fetched while generating reports, could be reused by the controller
+    var transactions: Array<TestRunTransactionsResponse>? = null
+    // results fetched with the transactions, the trending report of the build reuses both
+    var results: TestRunResultsResponse? = null
     var startTime: Long = -1
     var endTime: Long = -1
 
@@ -14,6 +14,8 @@ package com.microfocus.lrc.core.entity
 
 enum class OptionInEnvVars {
     LRC_SKIP_PDF_REPORT,
+    LRC_DEFER_PDF_REPORT,
+    LRC_ASYNC_REPORTS,
     LRC_DEBUG_LOG,
     LRC_TEST_MODE
 }
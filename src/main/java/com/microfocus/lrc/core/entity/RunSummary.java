@@ -0,0 +1,117 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.microfocus.lrc.core.entity;
+
+import java.io.Serializable;
+
+/**
+ * Run level KPIs of a {@link TrendingDataWrapper}, without the transactions.
+ * <p>
+ * Persisted in build.xml, so pages listing builds don't load the transactions.
+ */
+public final class RunSummary implements Serializable {
+    static final long serialVersionUID = 1L;
+
+    private final int runId;
+    private final int testId;
+    private final String testName;
+    private final String status;
+    private final int vusers;
+    private final double duration;
+    private final double tps;
+    private final double errorsPerSec;
+    private final int totalTxPassed;
+    private final int totalTxFailed;
+    private final int transactionsCount;
+    private final String tenantId;
+    private final Integer benchmarkId;
+
+    private RunSummary(final TrendingDataWrapper wrapper) {
+        TrendingDataWrapper.TrendingData data = wrapper.getTrendingData();
+        this.runId = data.getRunId();
+        this.testId = data.getTestId();
+        this.testName = data.getTestName();
+        this.status = data.getStatus();
+        this.vusers = data.getVusers();
+        this.duration = data.getDuration();
+        this.tps = data.getDuration() > 0
+                ? (data.getTotalTxPassed() + data.getTotalTxFailed()) / data.getDuration()
+                : 0;
+        this.errorsPerSec = data.getErrorsPerSec();
+        this.totalTxPassed = data.getTotalTxPassed();
+        this.totalTxFailed = data.getTotalTxFailed();
+        TransactionColumns columns = data.getTransactionColumns();
+        this.transactionsCount = columns == null ? 0 : columns.size();
+        this.tenantId = wrapper.getTenantId();
+        this.benchmarkId = wrapper.getBenchmarkId();
+    }
+
+    public static RunSummary of(final TrendingDataWrapper wrapper) {
+        return wrapper == null ? null : new RunSummary(wrapper);
+    }
+
+    //#region accessors
+    public int getRunId() {
+        return runId;
+    }
+
+    public int getTestId() {
+        return testId;
+    }
+
+    public String getTestName() {
+        return testName;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public int getVusers() {
+        return vusers;
+    }
+
+    public double getDuration() {
+        return duration;
+    }
+
+    public double getTps() {
+        return tps;
+    }
+
+    public double getErrorsPerSec() {
+        return errorsPerSec;
+    }
+
+    public int getTotalTxPassed() {
+        return totalTxPassed;
+    }
+
+    public int getTotalTxFailed() {
+        return totalTxFailed;
+    }
+
+    public int getTransactionsCount() {
+        return transactionsCount;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public Integer getBenchmarkId() {
+        return benchmarkId;
+    }
+    //#endregion
+}
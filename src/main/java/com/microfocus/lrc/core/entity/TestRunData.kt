@@ -0,0 +1,65 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.core.entity
+
+import java.io.Serializable
+
+/**
+ * raw results and transactions of a test run, as returned by the API.
+ * either part could be null if it has not been fetched.
+ */
+class TestRunData(
+    val tenantId: String,
+    val runId: Int,
+    var results: TestRunResultsResponse?,
+    var transactions: Array<TestRunTransactionsResponse>?,
+) : Serializable {
+    companion object {
+        private const val serialVersionUID = 1L
+    }
+
+    fun isComplete(): Boolean {
+        return this.results != null && this.transactions != null
+    }
+
+    fun merge(other: TestRunData?) {
+        if (other == null) {
+            return
+        }
+        if (this.results == null) {
+            this.results = other.results
+        }
+        if (this.transactions == null) {
+            this.transactions = other.transactions
+        }
+    }
+}
+
+/**
+ * result of fetching trending data, along with the raw data of the ended runs involved,
+ * so the caller could cache them.
+ */
+class TrendingFetchResult(
+    val trendingDataWrapper: TrendingDataWrapper,
+    val endedRunsData: List<TestRunData>,
+) : Serializable {
+    companion object {
+        private const val serialVersionUID = 1L
+    }
+
+    /**
+     * the trending model with the fetched run as the latest build, if it's computed where the data is fetched.
+     */
+    var trendingState: TrendingState? = null
+    var generatorLogs: String = ""
+}
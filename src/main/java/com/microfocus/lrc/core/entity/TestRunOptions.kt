@@ -24,4 +24,13 @@ class TestRunOptions(
     constructor(testId: Int, sendEmail: Boolean) : this(
         testId, sendEmail, false, false, false
     )
+
+    // pdf report is generated on demand from the build page instead of during the build
+    var deferPdfReport: Boolean = false
+
+    // csv and pdf reports are downloaded by a background task after the build result is set
+    var asyncReports: Boolean = false
+
+    // results and transactions of the run are fetched for the trending report of the same build
+    var keepRunData: Boolean = false
 }
@@ -0,0 +1,295 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.core.entity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Transactions of a test run stored column by column: the names and scripts as shared strings,
+ * the metrics in primitive arrays. {@link #asList()} gives the rows as {@link TrendingDataWrapper.TransactionData}.
+ * <p>
+ * The binary form encodes names and scripts as ids of a string dictionary,
+ * the caller provides the dictionary (one per job for the trending store) or a local one is written first.
+ */
+public final class TransactionColumns implements Serializable {
+    static final long serialVersionUID = 1L;
+    private static final int FORMAT_VERSION = 1;
+
+    private int size;
+    private String[] names;
+    private String[] scripts;
+    private double[] min;
+    private double[] max;
+    private double[] avg;
+    private double[] nintieth;
+    private double[] breakers;
+    private double[] thresholds;
+    private int[] passed;
+    private int[] failed;
+
+    public TransactionColumns(final int capacity) {
+        int n = Math.max(capacity, 0);
+        this.names = new String[n];
+        this.scripts = new String[n];
+        this.min = new double[n];
+        this.max = new double[n];
+        this.avg = new double[n];
+        this.nintieth = new double[n];
+        this.breakers = new double[n];
+        this.thresholds = new double[n];
+        this.passed = new int[n];
+        this.failed = new int[n];
+    }
+
+    public static TransactionColumns of(final List<TrendingDataWrapper.TransactionData> transactions) {
+        TransactionColumns columns = new TransactionColumns(transactions.size());
+        for (TrendingDataWrapper.TransactionData tx : transactions) {
+            columns.add(tx);
+        }
+        return columns;
+    }
+
+    public void add(final TrendingDataWrapper.TransactionData tx) {
+        this.add(
+                tx.getName(), tx.getScript(), tx.getMin(), tx.getMax(), tx.getAvg(), tx.getNintieth(),
+                tx.getBreakers(), tx.getThresholds(), (int) tx.getPassed(), (int) tx.getFailed()
+        );
+    }
+
+    @SuppressWarnings("java:S107")
+    public void add(
+            final String name,
+            final String script,
+            final double minTRT,
+            final double maxTRT,
+            final double avgTRT,
+            final double nintiethTRT,
+            final double breakersCount,
+            final double threshold,
+            final int passedCount,
+            final int failedCount
+    ) {
+        if (this.size == this.names.length) {
+            this.grow();
+        }
+        int i = this.size++;
+        // the same script is shared by many transactions, keep one instance
+        this.scripts[i] = i > 0 && script != null && script.equals(this.scripts[i - 1]) ? this.scripts[i - 1] : script;
+        this.names[i] = name;
+        this.min[i] = minTRT;
+        this.max[i] = maxTRT;
+        this.avg[i] = avgTRT;
+        this.nintieth[i] = nintiethTRT;
+        this.breakers[i] = breakersCount;
+        this.thresholds[i] = threshold;
+        this.passed[i] = passedCount;
+        this.failed[i] = failedCount;
+    }
+
+    private void grow() {
+        int n = Math.max(8, this.names.length * 2);
+        this.names = Arrays.copyOf(this.names, n);
+        this.scripts = Arrays.copyOf(this.scripts, n);
+        this.min = Arrays.copyOf(this.min, n);
+        this.max = Arrays.copyOf(this.max, n);
+        this.avg = Arrays.copyOf(this.avg, n);
+        this.nintieth = Arrays.copyOf(this.nintieth, n);
+        this.breakers = Arrays.copyOf(this.breakers, n);
+        this.thresholds = Arrays.copyOf(this.thresholds, n);
+        this.passed = Arrays.copyOf(this.passed, n);
+        this.failed = Arrays.copyOf(this.failed, n);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public String getName(final int i) {
+        return this.names[i];
+    }
+
+    public String getScript(final int i) {
+        return this.scripts[i];
+    }
+
+    public double getAvg(final int i) {
+        return this.avg[i];
+    }
+
+    public double getNintieth(final int i) {
+        return this.nintieth[i];
+    }
+
+    public int getPassed(final int i) {
+        return this.passed[i];
+    }
+
+    public int getFailed(final int i) {
+        return this.failed[i];
+    }
+
+    public TrendingDataWrapper.TransactionData get(final int i) {
+        if (i < 0 || i >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + this.size);
+        }
+        return new TrendingDataWrapper.TransactionData(
+                this.names[i], this.scripts[i], this.min[i], this.max[i], this.avg[i], this.nintieth[i],
+                this.breakers[i], this.thresholds[i], this.passed[i], this.failed[i]
+        );
+    }
+
+    /**
+     * read-only view of the rows, each row is created when it's read.
+     */
+    public List<TrendingDataWrapper.TransactionData> asList() {
+        return new AbstractList<TrendingDataWrapper.TransactionData>() {
+            @Override
+            public TrendingDataWrapper.TransactionData get(final int index) {
+                return TransactionColumns.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return TransactionColumns.this.size;
+            }
+        };
+    }
+
+    /**
+     * @param dictionary id of a name or script in the dictionary of the caller, adding it if needed
+     */
+    public void write(final DataOutput out, final ToIntFunction<String> dictionary) throws IOException {
+        out.writeInt(this.size);
+        for (int i = 0; i < this.size; i++) {
+            out.writeInt(dictionary.applyAsInt(this.names[i]));
+            out.writeInt(dictionary.applyAsInt(this.scripts[i]));
+        }
+        writeColumn(out, this.min, this.size);
+        writeColumn(out, this.max, this.size);
+        writeColumn(out, this.avg, this.size);
+        writeColumn(out, this.nintieth, this.size);
+        writeColumn(out, this.breakers, this.size);
+        writeColumn(out, this.thresholds, this.size);
+        for (int i = 0; i < this.size; i++) {
+            out.writeInt(this.passed[i]);
+        }
+        for (int i = 0; i < this.size; i++) {
+            out.writeInt(this.failed[i]);
+        }
+    }
+
+    /**
+     * @param dictionary the name or script of an id written by {@link #write}
+     */
+    public static TransactionColumns read(final DataInput in, final IntFunction<String> dictionary)
+            throws IOException {
+        int n = in.readInt();
+        TransactionColumns columns = new TransactionColumns(n);
+        columns.size = n;
+        for (int i = 0; i < n; i++) {
+            columns.names[i] = dictionary.apply(in.readInt());
+            columns.scripts[i] = dictionary.apply(in.readInt());
+        }
+        readColumn(in, columns.min, n);
+        readColumn(in, columns.max, n);
+        readColumn(in, columns.avg, n);
+        readColumn(in, columns.nintieth, n);
+        readColumn(in, columns.breakers, n);
+        readColumn(in, columns.thresholds, n);
+        for (int i = 0; i < n; i++) {
+            columns.passed[i] = in.readInt();
+        }
+        for (int i = 0; i < n; i++) {
+            columns.failed[i] = in.readInt();
+        }
+        return columns;
+    }
+
+    /**
+     * binary form with its own dictionary, for storage without a shared one.
+     */
+    public byte[] toBytes() throws IOException {
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> ids = new HashMap<>();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        this.write(new DataOutputStream(body), s -> ids.computeIfAbsent(s, k -> {
+            strings.add(k);
+            return strings.size() - 1;
+        }));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.size() + strings.size() * 16);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(strings.size());
+        for (String s : strings) {
+            writeString(out, s);
+        }
+        body.writeTo(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public static TransactionColumns fromBytes(final byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported transactions format: " + version);
+        }
+        String[] strings = new String[in.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readString(in);
+        }
+        return read(in, id -> strings[id]);
+    }
+
+    /**
+     * a string which may be null.
+     */
+    public static void writeString(final DataOutput out, final String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    public static String readString(final DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeColumn(final DataOutput out, final double[] column, final int n) throws IOException {
+        for (int i = 0; i < n; i++) {
+            out.writeDouble(column[i]);
+        }
+    }
+
+    private static void readColumn(final DataInput in, final double[] column, final int n) throws IOException {
+        for (int i = 0; i < n; i++) {
+            column[i] = in.readDouble();
+        }
+    }
+}
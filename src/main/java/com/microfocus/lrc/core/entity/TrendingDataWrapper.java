@@ -12,13 +12,22 @@
 
 package com.microfocus.lrc.core.entity;
 
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.microfocus.lrc.core.Constants;
 import com.microfocus.lrc.core.JsonObj;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -30,6 +39,32 @@ import java.util.List;
 public final class TrendingDataWrapper implements Serializable {
 
     static final long serialVersionUID = 1L;
+    private static final int FORMAT_VERSION = 1;
+    // the transactions are written in binary beside the json
+    private static final Gson WITHOUT_TRANSACTIONS = new GsonBuilder().setExclusionStrategies(new ExclusionStrategy() {
+        @Override
+        public boolean shouldSkipField(final FieldAttributes f) {
+            return f.getDeclaredClass() == TransactionColumns.class;
+        }
+
+        @Override
+        public boolean shouldSkipClass(final Class<?> clazz) {
+            return false;
+        }
+    }).create();
+    // neither the transactions nor the benchmark
+    private static final Gson WITHOUT_BENCHMARK = new GsonBuilder().setExclusionStrategies(new ExclusionStrategy() {
+        @Override
+        public boolean shouldSkipField(final FieldAttributes f) {
+            return f.getDeclaredClass() == TransactionColumns.class
+                    || (f.getDeclaringClass() == TrendingDataWrapper.class && "benchmark".equals(f.getName()));
+        }
+
+        @Override
+        public boolean shouldSkipClass(final Class<?> clazz) {
+            return false;
+        }
+    }).create();
 
     private final TrendingData trendingData;
     private TrendingData benchmark;
@@ -95,9 +130,120 @@ public final class TrendingDataWrapper implements Serializable {
         return tenantId;
     }
 
+    /**
+     * true if the transactions were loaded in the format of older versions, the data should be saved again.
+     */
+    public boolean isLegacyFormat() {
+        return this.trendingData.isLegacyFormat() || (this.benchmark != null && this.benchmark.isLegacyFormat());
+    }
+
+    /**
+     * set the benchmark of a wrapper read without it, see {@link #toBytes(boolean)}.
+     */
+    public void setBenchmark(final TrendingData benchmark) {
+        this.benchmark = benchmark;
+    }
+
+    public byte[] toBytes() throws IOException {
+        return this.toBytes(true);
+    }
 
-    public final class TransactionData implements Serializable {
+    /**
+     * binary form: the json of the wrapper without transactions, then the transactions of the run and of the benchmark.
+     *
+     * @param withBenchmark false to only keep {@link #getBenchmarkId()}, for benchmarks stored once elsewhere
+     */
+    public byte[] toBytes(final boolean withBenchmark) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(FORMAT_VERSION);
+        Gson gson = withBenchmark ? WITHOUT_TRANSACTIONS : WITHOUT_BENCHMARK;
+        writeBlock(out, gson.toJson(this).getBytes(StandardCharsets.UTF_8));
+        for (TrendingData data : new TrendingData[]{this.trendingData, withBenchmark ? this.benchmark : null}) {
+            TransactionColumns columns = data == null ? null : data.getTransactionColumns();
+            out.writeBoolean(columns != null);
+            if (columns != null) {
+                writeBlock(out, columns.toBytes());
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public static TrendingDataWrapper fromBytes(final byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported trending data format: " + version);
+        }
+        TrendingDataWrapper wrapper = WITHOUT_TRANSACTIONS.fromJson(
+                new String(readBlock(in), StandardCharsets.UTF_8),
+                TrendingDataWrapper.class
+        );
+        for (TrendingData data : new TrendingData[]{wrapper.trendingData, wrapper.benchmark}) {
+            if (in.readBoolean()) {
+                byte[] columnsBytes = readBlock(in);
+                if (data != null) {
+                    data.setTransactionColumns(TransactionColumns.fromBytes(columnsBytes));
+                }
+            }
+        }
+        return wrapper;
+    }
+
+    /**
+     * binary form of a benchmark stored once for all the builds using it.
+     */
+    public static byte[] benchmarkToBytes(final TrendingData benchmark) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(FORMAT_VERSION);
+        writeBlock(out, WITHOUT_TRANSACTIONS.toJson(benchmark).getBytes(StandardCharsets.UTF_8));
+        TransactionColumns columns = benchmark.getTransactionColumns();
+        out.writeBoolean(columns != null);
+        if (columns != null) {
+            writeBlock(out, columns.toBytes());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public static TrendingData benchmarkFromBytes(final byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported trending data format: " + version);
+        }
+        TrendingData benchmark = WITHOUT_TRANSACTIONS.fromJson(
+                new String(readBlock(in), StandardCharsets.UTF_8),
+                TrendingData.class
+        );
+        if (in.readBoolean()) {
+            benchmark.setTransactionColumns(TransactionColumns.fromBytes(readBlock(in)));
+        }
+        return benchmark;
+    }
+
+    private static void writeBlock(final DataOutputStream out, final byte[] block) throws IOException {
+        out.writeInt(block.length);
+        out.write(block);
+    }
+
+    private static byte[] readBlock(final DataInputStream in) throws IOException {
+        byte[] block = new byte[in.readInt()];
+        in.readFully(block);
+        return block;
+    }
+
+
+    /**
+     * one transaction of a run, the transactions of a run are stored in {@link TransactionColumns}.
+     */
+    public static final class TransactionData implements Serializable {
         static final long serialVersionUID = 1L;
+        // the wrapper written as <outer-class> when this was an inner class, only read from older build.xml
+        @SuppressWarnings({"unused", "java:S1068"})
+        private transient Object outerClass;
         private String name;
         private String script;
         private double min;
@@ -191,6 +337,31 @@ public final class TrendingDataWrapper implements Serializable {
         }
         //#endregion
 
+        @SuppressWarnings("java:S107")
+        public TransactionData(
+                final String name,
+                final String script,
+                final double min,
+                final double max,
+                final double avg,
+                final double nintieth,
+                final double breakers,
+                final double thresholds,
+                final int passed,
+                final int failed
+        ) {
+            this.name = name;
+            this.script = script;
+            this.min = min;
+            this.max = max;
+            this.avg = avg;
+            this.nintieth = nintieth;
+            this.breakers = breakers;
+            this.thresholds = thresholds;
+            this.passed = passed;
+            this.failed = failed;
+        }
+
         public TransactionData(final JsonObject json) {
             JsonObj obj = new JsonObj(json);
             this.name = json.get("transaction").getAsString();
@@ -237,7 +408,13 @@ public final class TrendingDataWrapper implements Serializable {
         private int totalTxFailed;
         private double errorsPerSec;
         private String startTime;
+        private TransactionColumns transactionColumns;
+        /**
+         * replaced by {@link #transactionColumns}, only read from data saved by older versions.
+         */
+        @Deprecated
         private List<TransactionData> transactions;
+        private transient boolean legacyFormat;
 
         //#region accessors
         public int getRunId() {
@@ -279,8 +456,38 @@ public final class TrendingDataWrapper implements Serializable {
             return errorsPerSec;
         }
 
+        /**
+         * read-only rows of {@link #getTransactionColumns()}.
+         */
         public List<TransactionData> getTransactions() {
-            return transactions;
+            TransactionColumns columns = this.getTransactionColumns();
+            return columns == null ? null : columns.asList();
+        }
+
+        @SuppressWarnings("deprecation")
+        public TransactionColumns getTransactionColumns() {
+            if (this.transactionColumns == null && this.transactions != null) {
+                this.transactionColumns = TransactionColumns.of(this.transactions);
+                this.transactions = null;
+                this.legacyFormat = true;
+            }
+            return this.transactionColumns;
+        }
+
+        public void setTransactionColumns(final TransactionColumns transactionColumns) {
+            this.transactionColumns = transactionColumns;
+        }
+
+        /**
+         * true if the transactions were loaded as a list saved by an older version.
+         */
+        public boolean isLegacyFormat() {
+            return this.legacyFormat;
+        }
+
+        private Object readResolve() {
+            this.getTransactionColumns();
+            return this;
         }
         //#endregion
 
@@ -306,10 +513,10 @@ public final class TrendingDataWrapper implements Serializable {
             this.startTime = data.optString("startTime");
             this.vusers = data.optInt("vusers", 0);
             JsonArray transactionsArr = json.get("slaData").getAsJsonArray();
-            this.transactions = new ArrayList<>();
+            this.transactionColumns = new TransactionColumns(transactionsArr.size());
             for (int i = 0; i < transactionsArr.size(); i++) {
                 JsonObject t = transactionsArr.get(i).getAsJsonObject();
-                this.transactions.add(new TransactionData(t));
+                this.transactionColumns.add(new TransactionData(t));
             }
         }
 
@@ -338,9 +545,9 @@ public final class TrendingDataWrapper implements Serializable {
             this.totalTxFailed = results.getTotalTransactionsFailed();
             this.totalTxPassed = results.getTotalTransactionsPassed();
             this.vusers = results.getTotalVusers();
-            this.transactions = new ArrayList<>();
+            this.transactionColumns = new TransactionColumns(tx.length);
             for (TestRunTransactionsResponse txItem : tx) {
-                this.transactions.add(new TransactionData(txItem));
+                this.transactionColumns.add(new TransactionData(txItem));
             }
         }
 
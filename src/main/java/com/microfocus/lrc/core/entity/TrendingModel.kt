@@ -0,0 +1,128 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.core.entity
+
+import java.io.Serializable
+import java.math.BigDecimal
+
+/**
+ * trending data of one build, input of the trending calculation.
+ */
+class TrendingRun(
+    val buildNo: Int,
+    val buildDate: String,
+    val data: TrendingDataWrapper.TrendingData
+)
+
+/**
+ * computed trending report, serialized as the "data" of the trending report page.
+ * field names are used by run_report.twig, don't rename them.
+ */
+class TrendingModel(
+    val metrics: MutableList<RunOverview>,
+    val trt: MutableList<TransactionTrendGroup>
+) : Serializable {
+    companion object {
+        private const val serialVersionUID = 1L
+    }
+}
+
+/**
+ * computed trending model of a job and what it was computed from, so it can be updated incrementally.
+ * [buildNos] and [runIds] are the columns of the model, latest first.
+ */
+class TrendingState(
+    val configKey: String,
+    val benchmarkId: Int?,
+    val buildNos: MutableList<Int>,
+    val runIds: MutableList<Int>,
+    val model: TrendingModel
+) : Serializable {
+    companion object {
+        private const val serialVersionUID = 1L
+    }
+}
+
+/**
+ * the saved trending model of a job, sent to the agent fetching the run of a new build,
+ * which adds the column of the build so the controller doesn't compute it, see [TrendingCalculator.addLatest].
+ * [window] is the columns of the updated model, latest first, starting with [buildNo].
+ * [basedOn] is the columns of [state] when it was sent, [state] itself is updated by the agent.
+ * [previousRuns] is the trending data of the kept columns, only sent for the 'Previous' benchmark.
+ */
+class TrendingUpdate(
+    val state: TrendingState,
+    val basedOn: List<Int>,
+    val window: List<Int>,
+    val buildNo: Int,
+    val buildDate: String,
+    val previousRuns: Map<Int, TrendingDataWrapper.TrendingData>
+) : Serializable {
+    companion object {
+        private const val serialVersionUID = 1L
+    }
+}
+
+class RunOverview(
+    val runId: Int,
+    val buildNo: Int,
+    val avgHits: Double,
+    val avgThroughput: Double,
+    val errorsPerSec: Double,
+    val duration: Double,
+    val initDuration: Double,
+    val vusers: Int,
+    val tps: Double,
+    val totalTxPassed: Int,
+    val totalTxFailed: Int,
+    val status: String?,
+    val date: String
+) : Serializable {
+    companion object {
+        private const val serialVersionUID = 1L
+    }
+}
+
+class TransactionTrendGroup(
+    val transactionName: String?,
+    val scriptName: String?,
+    val trtDataArr: MutableList<TransactionTrend>
+) : Serializable {
+    companion object {
+        private const val serialVersionUID = 1L
+    }
+}
+
+class TransactionTrend(
+    val runId: Int,
+    val buildNo: Int,
+    val percentile: Int,
+    val avg: BigDecimal,
+    val ninetieth: BigDecimal,
+    val avgTrend: BigDecimal,
+    val isAvgImpr: Boolean,
+    val isAvgMinorRegr: Boolean,
+    val isAvgMajorRegr: Boolean,
+    val ninetiethTrend: BigDecimal,
+    val is90thImpr: Boolean,
+    val is90thMinorRegr: Boolean,
+    val is90thMajorRegr: Boolean,
+    val avgTrendCalc: String,
+    val ninetiethTrendCalc: String,
+    val passed: Int,
+    val failed: Int
+) : Serializable {
+    companion object {
+        private const val serialVersionUID = 1L
+    }
+}
@@ -20,8 +20,14 @@ import com.microfocus.lrc.core.Constants
 import com.microfocus.lrc.core.XmlReport
 import com.microfocus.lrc.core.entity.*
 import com.microfocus.lrc.jenkins.LoggerProxy
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.runBlocking
+import java.io.BufferedOutputStream
 import java.io.ByteArrayOutputStream
 import java.io.IOException
+import java.io.OutputStream
 
 class ReportDownloader(
     private val apiClient: ApiClient,
@@ -32,20 +38,34 @@ class ReportDownloader(
         @JvmStatic
         fun writeCsvBytesArray(transactions: Array<TestRunTransactionsResponse>): ByteArray {
             val stream = ByteArrayOutputStream()
-            val writer = stream.writer()
+            writeCsv(stream, transactions)
+
+            return stream.toByteArray()
+        }
+
+        /**
+         * stream the transactions csv report into [out], [out] is not closed.
+         */
+        @JvmStatic
+        fun writeCsv(out: OutputStream, transactions: Array<TestRunTransactionsResponse>) {
+            val writer = out.writer()
             writer.appendLine("Script Name, Transaction, %Breakers, SLA Status, AVG Duration, Min, Max, STD. Deviation, Passed, Failed, Percentile, SLA Threshold, Percentile Trend")
             transactions.forEach { tx ->
                 writer.appendLine("${tx.scriptName}, ${tx.name}, ${tx.breakers}, ${tx.slaStatus}, ${tx.avgTRT}, ${tx.minTRT}, ${tx.maxTRT}, ${tx.stdDeviation}, ${tx.passed}, ${tx.failed}, ${tx.percentileTRT}, ${tx.slaThreshold}, ${tx.slaTrend}")
             }
             writer.flush()
-
-            return stream.toByteArray()
         }
     }
 
+    /**
+     * where the xml and transactions csv reports are written,
+     * they are kept in [LoadTestRun.reportsByteArray] if it's not set.
+     */
+    var reportOutput: ReportOutput? = null
+
     fun download(testRun: LoadTestRun, reportTypes: Array<String>) {
         var validReportTypes = arrayOf("csv", "pdf")
-        if (this.testRunOptions.skipPdfReport) {
+        if (this.testRunOptions.skipPdfReport || this.testRunOptions.deferPdfReport) {
             validReportTypes = arrayOf("csv")
         }
         // validate report types
@@ -58,35 +78,63 @@ class ReportDownloader(
             return
         }
 
-        // request reports generating
-        filteredReportTypes.map { reportType ->
-            this.loggerProxy.info("Requesting $reportType report ...")
-            val reportId = this.requestReportId(testRun.id, reportType)
-            // wait for the report to be ready
-            var retryWaitingTimes = 0
-            var maxRetry = 6
-            if (reportType == "pdf") {
-                maxRetry = 24  // max 8 minutes for pdf report generation
-            }
+        if (this.testRunOptions.asyncReports) {
+            // requested by a background task on the controller after the build result is set
+            this.loggerProxy.info("Reports (${filteredReportTypes.joinToString(", ")}) will be downloaded in background.")
+        } else {
+            // request reports generating
+            filteredReportTypes.map { reportType ->
+                val reportId = this.requestReport(testRun.id, reportType) ?: return
 
-            val pollingInterval = if (testRunOptions.isTestMode) 100 else Constants.REPORT_DOWNLOAD_POLLING_INTERVAL
-
-            while (retryWaitingTimes < maxRetry && !this.isReportReady(reportId)) {
-                Thread.sleep(pollingInterval)
-                retryWaitingTimes += 1
+                val fileName = genFileName(reportType, testRun.id)
+                testRun.reports[fileName] = reportId
             }
+        }
 
-            if (retryWaitingTimes >= maxRetry) {
-                this.loggerProxy.info("Report #$reportId is not ready after $retryWaitingTimes retries")
-                return
+        // transactions are shared by the xml and the csv report
+        val txArr = fetchTestRunTx(testRun.id)
+        testRun.transactions = txArr
+        if (this.testRunOptions.keepRunData) {
+            // handed off with the transactions to the trending report of the build, which then doesn't log in again
+            testRun.results = try {
+                fetchTestRunResults(testRun.id)
+            } catch (e: IOException) {
+                this.loggerProxy.debug("Results of run #${testRun.id} not available: ${e.message}")
+                null
             }
+        }
+        genXmlFile(testRun, txArr)
+        genTxCsv(testRun, txArr)
+    }
+
+    /**
+     * request a report and wait for it to be ready.
+     * returns the report id, or null if the report is not ready in time.
+     */
+    @kotlin.jvm.Throws(IOException::class, InterruptedException::class)
+    fun requestReport(runId: Int, reportType: String): Int? {
+        this.loggerProxy.info("Requesting $reportType report ...")
+        val reportId = this.requestReportId(runId, reportType)
+        // wait for the report to be ready
+        var retryWaitingTimes = 0
+        var maxRetry = 6
+        if (reportType == "pdf") {
+            maxRetry = 24  // max 8 minutes for pdf report generation
+        }
 
-            val fileName = genFileName(reportType, testRun)
-            testRun.reports[fileName] = reportId
+        val pollingInterval = if (testRunOptions.isTestMode) 100 else Constants.REPORT_DOWNLOAD_POLLING_INTERVAL
+
+        while (retryWaitingTimes < maxRetry && !this.isReportReady(reportId)) {
+            Thread.sleep(pollingInterval)
+            retryWaitingTimes += 1
+        }
+
+        if (retryWaitingTimes >= maxRetry) {
+            this.loggerProxy.info("Report #$reportId is not ready after $retryWaitingTimes retries")
+            return null
         }
 
-        genXmlFile(testRun)
-        genTxCsv(testRun)
+        return reportId
     }
 
     private fun requestReportId(runId: Int, reportType: String): Int {
@@ -147,12 +195,12 @@ class ReportDownloader(
         throw Exception("Unknown content type: $contentType")
     }
 
-    private fun genFileName(reportType: String, testRun: LoadTestRun): String {
-        return "lrc_report_${this.apiClient.getServerConfiguration().tenantId}-${testRun.id}.${reportType}"
+    fun genFileName(reportType: String, runId: Int): String {
+        return "lrc_report_${this.apiClient.getServerConfiguration().tenantId}-${runId}.${reportType}"
     }
 
-    fun genXmlFile(testRun: LoadTestRun) {
-        val fileName = genFileName("xml", testRun)
+    fun genXmlFile(testRun: LoadTestRun, transactions: Array<TestRunTransactionsResponse>? = null) {
+        val fileName = genFileName("xml", testRun.id)
         val reportUrl = "${this.apiClient.getServerConfiguration().url}/run-overview/${testRun.id}/report/?TENANTID=${this.apiClient.getServerConfiguration().tenantId}&projectId=${this.apiClient.getServerConfiguration().projectId}"
         val dashboardUrl = "${this.apiClient.getServerConfiguration().url}/run-overview/${testRun.id}/dashboard/?TENANTID=${this.apiClient.getServerConfiguration().tenantId}&projectId=${this.apiClient.getServerConfiguration().projectId}"
 
@@ -161,12 +209,35 @@ class ReportDownloader(
             this.loggerProxy.info("View dashboard at: $dashboardUrl")
         }
 
-        val content = XmlReport.write(
-            testRun,
-            reportUrl,
-            dashboardUrl
-        )
-        testRun.reportsByteArray[fileName] = content
+        this.writeReport(testRun, fileName) { out ->
+            XmlReport.write(
+                out,
+                testRun,
+                reportUrl,
+                dashboardUrl,
+                transactions
+            )
+        }
+    }
+
+    /**
+     * stream the report to [reportOutput], a report which can't be written is logged and skipped.
+     */
+    private fun writeReport(testRun: LoadTestRun, fileName: String, content: (OutputStream) -> Unit) {
+        val output = this.reportOutput
+        if (output == null) {
+            val stream = ByteArrayOutputStream()
+            content(stream)
+            testRun.reportsByteArray[fileName] = stream.toByteArray()
+            return
+        }
+
+        try {
+            BufferedOutputStream(output.open(fileName)).use { content(it) }
+            this.loggerProxy.info("Report file $fileName created.")
+        } catch (e: IOException) {
+            this.loggerProxy.error("Failed to create report file $fileName, ${e.message}")
+        }
     }
 
     private fun fetchTestRunResults(runId: Int): TestRunResultsResponse {
@@ -217,19 +288,47 @@ class ReportDownloader(
         }
     }
 
-    private fun genTxCsv(testRun: LoadTestRun) {
-        val txArr = fetchTestRunTx(testRun.id)
+    private fun genTxCsv(testRun: LoadTestRun, txArr: Array<TestRunTransactionsResponse>) {
         val fileName = "lrc_report_trans_${this.apiClient.getServerConfiguration().tenantId}-${testRun.id}.csv"
-        testRun.reportsByteArray[fileName] = writeCsvBytesArray(txArr)
+        this.writeReport(testRun, fileName) { out -> writeCsv(out, txArr) }
+    }
+
+    /**
+     * fetch the results and transactions of a run concurrently,
+     * parts already present in [cached] are not fetched again.
+     */
+    suspend fun fetchRunData(runId: Int, cached: TestRunData?): TestRunData = coroutineScope {
+        val results = async(Dispatchers.IO) {
+            cached?.results ?: this@ReportDownloader.fetchTestRunResults(runId)
+        }
+        val txArr = async(Dispatchers.IO) {
+            cached?.transactions ?: this@ReportDownloader.fetchTestRunTx(runId)
+        }
+        if (cached != null) {
+            this@ReportDownloader.loggerProxy.debug("Cached data of run #$runId found, complete: ${cached.isComplete()}")
+        }
+
+        TestRunData(
+            this@ReportDownloader.apiClient.getServerConfiguration().tenantId,
+            runId,
+            results.await(),
+            txArr.await()
+        )
     }
 
     fun fetchTrending(testRun: LoadTestRun, benchmark: TrendingDataWrapper?): TrendingDataWrapper {
-        val results = this.fetchTestRunResults(testRun.id)
-        val txArr = this.fetchTestRunTx(testRun.id)
+        return this.fetchTrending(testRun, benchmark, runBlocking { fetchRunData(testRun.id, null) })
+    }
+
+    fun fetchTrending(
+        testRun: LoadTestRun,
+        benchmark: TrendingDataWrapper?,
+        runData: TestRunData
+    ): TrendingDataWrapper {
         return TrendingDataWrapper(
             testRun,
-            results,
-            txArr,
+            runData.results ?: throw IOException("Results of run #${testRun.id} are not available"),
+            runData.transactions ?: throw IOException("Transactions of run #${testRun.id} are not available"),
             this.apiClient.getServerConfiguration().tenantId,
             benchmark
         )
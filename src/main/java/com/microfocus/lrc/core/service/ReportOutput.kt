@@ -0,0 +1,29 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.microfocus.lrc.core.service
+
+import java.io.IOException
+import java.io.OutputStream
+
+/**
+ * destination of the reports generated from the run data, e.g. the files of the workspace,
+ * so a report is streamed to its file instead of being built in memory.
+ */
+fun interface ReportOutput {
+    /**
+     * the stream of the report [fileName], closed by the caller once the report is written.
+     */
+    @Throws(IOException::class, InterruptedException::class)
+    fun open(fileName: String): OutputStream
+}
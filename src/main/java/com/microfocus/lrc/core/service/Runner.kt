@@ -17,6 +17,9 @@ import com.microfocus.lrc.core.Constants
 import com.microfocus.lrc.core.entity.*
 import com.microfocus.lrc.jenkins.LoggerOptions
 import com.microfocus.lrc.jenkins.LoggerProxy
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.runBlocking
 import java.io.Closeable
 import java.io.IOException
 import java.io.PrintStream
@@ -66,6 +69,15 @@ class Runner(
     var testRun: LoadTestRun? = null
         private set
 
+    /**
+     * where the xml and transactions csv reports are streamed, see [ReportDownloader.reportOutput].
+     */
+    var reportOutput: ReportOutput?
+        get() = this.reportDownloader.reportOutput
+        set(value) {
+            this.reportDownloader.reportOutput = value
+        }
+
     @kotlin.jvm.Throws(IOException::class, InterruptedException::class)
     fun run(): LoadTestRun {
         this.loggerProxy.info("Fetching load test #${this.testRunOptions.testId} ...")
@@ -165,14 +177,51 @@ class Runner(
     }
 
     fun fetchTrending(testRun: LoadTestRun, benchmark: Int?): TrendingDataWrapper {
+        return this.fetchTrending(testRun, benchmark, emptyMap()).trendingDataWrapper
+    }
+
+    /**
+     * fetch trending data of the run and its benchmark.
+     * all requests (benchmark run, results and transactions of both runs) are sent concurrently,
+     * [cachedRunData] is the data of ended runs, keyed by run id, which will not be fetched again.
+     */
+    fun fetchTrending(
+        testRun: LoadTestRun,
+        benchmark: Int?,
+        cachedRunData: Map<Int, TestRunData>
+    ): TrendingFetchResult = runBlocking {
+        val benchmarkRunDeferred = if (benchmark == null) null else async(Dispatchers.IO) {
+            this@Runner.loadTestRunService.fetch(benchmark.toString())
+        }
+        val benchmarkDataDeferred = if (benchmark == null) null else async {
+            // the benchmark may not exist, don't let it cancel the other requests
+            runCatching { this@Runner.reportDownloader.fetchRunData(benchmark, cachedRunData[benchmark]) }
+        }
+        val runDataDeferred = async {
+            this@Runner.reportDownloader.fetchRunData(testRun.id, cachedRunData[testRun.id])
+        }
+
+        val endedRunsData = mutableListOf<TestRunData>()
         var benchmarkTrending: TrendingDataWrapper? = null
-        if (benchmark != null) {
-            val benchmarkRun = this.loadTestRunService.fetch(benchmark.toString())
-            if (benchmarkRun != null) {
-                benchmarkTrending = this.reportDownloader.fetchTrending(benchmarkRun, null)
+        val benchmarkRun = benchmarkRunDeferred?.await()
+        if (benchmarkRun != null && benchmarkDataDeferred != null) {
+            val benchmarkData = benchmarkDataDeferred.await().getOrThrow()
+            benchmarkTrending = this@Runner.reportDownloader.fetchTrending(benchmarkRun, null, benchmarkData)
+            if (benchmarkRun.statusEnum.isEnded) {
+                endedRunsData.add(benchmarkData)
             }
+        } else {
+            benchmarkDataDeferred?.cancel()
+        }
+
+        val runData = runDataDeferred.await()
+        if (testRun.statusEnum.isEnded) {
+            endedRunsData.add(runData)
         }
 
-        return this.reportDownloader.fetchTrending(testRun, benchmarkTrending)
+        TrendingFetchResult(
+            this@Runner.reportDownloader.fetchTrending(testRun, benchmarkTrending, runData),
+            endedRunsData
+        )
     }
 }
@@ -0,0 +1,72 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.microfocus.lrc.jenkins;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executors of the background tasks of the plugin.
+ * <p>
+ * Report downloads poll LoadRunner Cloud for minutes and trending reports are computed over many builds,
+ * they must not hold the threads of {@link jenkins.util.Timer}, which is shared by Jenkins core and all plugins.
+ * Each executor has a fixed number of threads, extra tasks wait in its queue, idle threads are released.
+ */
+final class BackgroundTasks {
+    private static final int REPORT_THREADS = 2;
+    private static final int TRENDING_THREADS = 2;
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static final ExecutorService REPORTS = create("LoadRunner Cloud report download", REPORT_THREADS);
+    private static final ExecutorService TRENDING = create("LoadRunner Cloud trending", TRENDING_THREADS);
+
+    private BackgroundTasks() {
+    }
+
+    /**
+     * executor of the tasks requesting and downloading reports.
+     *
+     * @return the executor
+     */
+    static ExecutorService reports() {
+        return REPORTS;
+    }
+
+    /**
+     * executor of the tasks computing trending reports and migrating the trending data of builds.
+     *
+     * @return the executor
+     */
+    static ExecutorService trending() {
+        return TRENDING;
+    }
+
+    private static ExecutorService create(final String name, final int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), name)
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -19,6 +19,7 @@ import hudson.model.BooleanParameterValue
 import hudson.model.ParametersAction
 import hudson.model.Run
 import hudson.model.StringParameterValue
+import java.util.Collections
 import java.util.logging.Level
 
 class EnvVarsUtil {
@@ -30,19 +31,10 @@ class EnvVarsUtil {
             val action = build.getAction(ParametersAction::class.java)
 
             return try {
-                if (action != null) {
-                    val param = action.getParameter(/* name = */ key)
-                    if (param != null) {
-                        var paramValue = ""
-                        if (param is StringParameterValue) {
-                            paramValue = param.getValue().toString()
-                        } else if (param is BooleanParameterValue) {
-                            paramValue = param.getValue().toString()
-                        }
-
-                        return paramValue
-                    }
-                 }
+                val param = action?.getParameter(/* name = */ key)
+                if (param != null) {
+                    return paramValue(param)
+                }
 
                 //or try the system env var
                 EnvVars.getRemote(launcher.channel)[key]
@@ -52,6 +44,50 @@ class EnvVarsUtil {
             }
         }
 
+        /**
+         * values of [keys] at the time of the call, read from the build parameters first then the env variables
+         * of the node, the env variables are fetched in one call to the node for all the keys.
+         * keys without value are absent from the returned map, which can't be modified.
+         */
+        @JvmStatic
+        fun snapshot(build: Run<*, *>, launcher: Launcher, keys: Collection<String>): Map<String, String> {
+            // getAction(Class<T> type) is not deprecated
+            @SuppressWarnings("kotlin:S1874")
+            val action = build.getAction(ParametersAction::class.java)
+
+            val values = LinkedHashMap<String, String>()
+            val fromEnv = ArrayList<String>()
+            for (key in keys) {
+                val param = action?.getParameter(/* name = */ key)
+                if (param != null) {
+                    values[key] = paramValue(param)
+                } else {
+                    fromEnv.add(key)
+                }
+            }
+
+            if (fromEnv.isNotEmpty()) {
+                try {
+                    val envVars = EnvVars.getRemote(launcher.channel)
+                    for (key in fromEnv) {
+                        envVars[key]?.let { values[key] = it }
+                    }
+                } catch (e: Exception) {
+                    LoggerProxy.sysLogger.log(Level.WARNING, "Failed to get parameters / env variables, " + e.message)
+                }
+            }
+
+            return Collections.unmodifiableMap(values)
+        }
+
+        private fun paramValue(param: ParameterValue): String {
+            return when (param) {
+                is StringParameterValue -> param.getValue().toString()
+                is BooleanParameterValue -> param.getValue().toString()
+                else -> ""
+            }
+        }
+
         @JvmStatic
         fun putEnvVar(build: Run<*, *>, key: String?, value: String?) {
             val paramList: MutableList<ParameterValue> = mutableListOf(StringParameterValue(key, value))
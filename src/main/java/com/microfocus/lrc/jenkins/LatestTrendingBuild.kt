@@ -0,0 +1,233 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.jenkins
+
+import hudson.model.AbstractProject
+import hudson.model.Job
+import hudson.model.Run
+import java.io.File
+import java.io.IOException
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.util.concurrent.ConcurrentHashMap
+import java.util.logging.Level
+
+/**
+ * Per job pointer to the latest build with trending data (a [TestRunReportBuildAction] with a run summary),
+ * kept up to date by [TrendingRunListener], so job pages don't walk the build history.
+ *
+ * The pointer is persisted in `lrc-trending/latest-build` of the job. Jobs without that file are resolved once
+ * in background from their [TrendingStore] if they use the plugin: a [TestRunPublisher] is configured, the store
+ * exists, the last build has trending data, or a build with trending data is loaded.
+ * Until then, and for the other jobs, "no trending data" is only kept in memory, no file is created.
+ */
+class LatestTrendingBuild private constructor() {
+    companion object {
+        private const val FILE_NAME = "latest-build"
+        private const val NONE = 0
+
+        // trending dir of the job -> build number, NONE if the job has no trending data
+        private val latest = ConcurrentHashMap<String, Int>()
+        // trending dirs of the jobs resolved from their store since started
+        private val resolved = ConcurrentHashMap.newKeySet<String>()
+
+        /**
+         * true if a build of the job has trending data, no build is loaded.
+         */
+        @JvmStatic
+        fun exists(job: Job<*, *>): Boolean {
+            return this.number(job) != NONE
+        }
+
+        /**
+         * the action of the latest build with trending data, only that build is loaded.
+         */
+        @JvmStatic
+        fun get(job: Job<*, *>): TestRunReportBuildAction? {
+            val number = this.number(job)
+            if (number == NONE) {
+                return null
+            }
+            trendingAction(job.getBuildByNumber(number))?.let { return it }
+
+            // the build was deleted while the pointer wasn't updated
+            val store = TrendingStore.existing(job)
+            var entry = store?.latest()
+            while (store != null && entry != null) {
+                val action = trendingAction(job.getBuildByNumber(entry.buildNo))
+                if (action != null) {
+                    this.set(job, entry.buildNo)
+                    return action
+                }
+                store.delete(entry.buildNo)
+                entry = store.latest()
+            }
+            this.set(job, NONE)
+            return null
+        }
+
+        /**
+         * a build with trending data is completed.
+         */
+        @JvmStatic
+        fun onCompleted(run: Run<*, *>) {
+            if (trendingAction(run) == null) {
+                return
+            }
+            val job = run.parent
+            latest.merge(key(job), run.number) { current, number -> maxOf(current, number) }
+            persist(job)
+        }
+
+        /**
+         * a build with trending data is loaded, its job is resolved if it's not known yet.
+         */
+        @JvmStatic
+        fun onLoad(run: Run<*, *>) {
+            if (this.number(run.parent) == NONE) {
+                this.resolveLater(run.parent)
+            }
+        }
+
+        /**
+         * a build is deleted, its trending data has been removed from the store.
+         */
+        @JvmStatic
+        fun onDeleted(run: Run<*, *>) {
+            val job = run.parent
+            if (this.number(job) == run.number) {
+                this.set(job, TrendingStore.existing(job)?.latest()?.buildNo ?: NONE)
+            }
+        }
+
+        /**
+         * number of the latest build with trending data, 0 if there is none. no build is loaded.
+         */
+        @JvmStatic
+        fun number(job: Job<*, *>): Int {
+            val key = key(job)
+            latest[key]?.let { return it }
+
+            val file = File(File(key), FILE_NAME)
+            try {
+                if (file.exists()) {
+                    val number = String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim().toInt()
+                    return latest.merge(key, number) { current, n -> maxOf(current, n) } ?: number
+                }
+            } catch (e: IOException) {
+                LoggerProxy.sysLogger.log(Level.WARNING, "Failed to read $file, " + e.message)
+            } catch (e: NumberFormatException) {
+                LoggerProxy.sysLogger.log(Level.WARNING, "Failed to read $file, " + e.message)
+            }
+
+            // jobs not using the plugin are not resolved, no build nor file is read for them
+            if (latest.putIfAbsent(key, NONE) == null && usesTrending(job)) {
+                this.resolveLater(job)
+            }
+            return latest[key] ?: NONE
+        }
+
+        /**
+         * forget the pointers of the jobs under [rootDir], the item has been deleted.
+         */
+        @JvmStatic
+        fun evict(rootDir: File) {
+            val prefix = rootDir.absolutePath + File.separator
+            latest.keys.removeIf { it.startsWith(prefix) }
+            resolved.removeIf { it.startsWith(prefix) }
+        }
+
+        /**
+         * forget the pointers whose job directory no longer exists, the item has been renamed or moved.
+         */
+        @JvmStatic
+        fun evictMoved() {
+            latest.keys.removeIf { !File(it).parentFile.exists() }
+            resolved.removeIf { !File(it).parentFile.exists() }
+        }
+
+        /**
+         * true if the job may have trending data, only its configuration and a few files are checked.
+         */
+        private fun usesTrending(job: Job<*, *>): Boolean {
+            if (job is AbstractProject<*, *> && job.publishersList.get(TestRunPublisher::class.java) != null) {
+                return true
+            }
+            if (TrendingStore.existing(job) != null) {
+                return true
+            }
+            val lastBuild = File(job.buildDir, (job.nextBuildNumber - 1).toString())
+            return File(lastBuild, TestRunReportBuildAction.TRENDING_DATA_FILE).exists()
+        }
+
+        private fun resolveLater(job: Job<*, *>) {
+            if (resolved.add(key(job))) {
+                BackgroundTasks.trending().submit(Runnable { resolve(job) })
+            }
+        }
+
+        /**
+         * the latest build in the store of the job, which is filled from the build directories once.
+         * a build completed meanwhile is kept if it's later.
+         */
+        private fun resolve(job: Job<*, *>) {
+            try {
+                val store = TrendingStore.of(job)
+                var entry = store.latest()
+                // the store is updated by the listeners, a build deleted while Jenkins was down may remain
+                while (entry != null && !File(job.buildDir, entry.buildNo.toString()).exists()) {
+                    store.delete(entry.buildNo)
+                    entry = store.latest()
+                }
+                latest.merge(key(job), entry?.buildNo ?: NONE) { current, n -> maxOf(current, n) }
+                persist(job)
+            } catch (e: RuntimeException) {
+                LoggerProxy.sysLogger.log(Level.WARNING, "Failed to find the latest trending build of ${job.fullName}", e)
+            }
+        }
+
+        private fun key(job: Job<*, *>): String {
+            return File(job.rootDir, TrendingStore.DIR_NAME).absolutePath
+        }
+
+        private fun set(job: Job<*, *>, number: Int) {
+            latest[key(job)] = number
+            persist(job)
+        }
+
+        /**
+         * write the pointer as it is in memory, the last write has the latest value whatever the order of the updates.
+         * "no trending data" is only written for jobs which have a trending dir.
+         */
+        @Synchronized
+        private fun persist(job: Job<*, *>) {
+            val dir = File(job.rootDir, TrendingStore.DIR_NAME)
+            val number = latest[dir.absolutePath] ?: return
+            if (number == NONE && !dir.exists()) {
+                return
+            }
+            val file = File(dir, FILE_NAME)
+            try {
+                Files.createDirectories(dir.toPath())
+                Files.write(file.toPath(), number.toString().toByteArray(StandardCharsets.UTF_8))
+            } catch (e: IOException) {
+                LoggerProxy.sysLogger.log(Level.WARNING, "Failed to write $file, " + e.message)
+            }
+        }
+
+        private fun trendingAction(run: Run<*, *>?): TestRunReportBuildAction? {
+            val action = run?.getAction(TestRunReportBuildAction::class.java) ?: return null
+            return if (action.hasTrendingData()) action else null
+        }
+    }
+}
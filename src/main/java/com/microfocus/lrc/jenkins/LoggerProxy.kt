@@ -38,6 +38,7 @@ class LoggerProxy(
         return "[LRC][$level]${this.moduleNameStr} $msg"
     }
 
+    @Synchronized
     private fun print(msg: String) {
         if (lastMsg == msg) {
             println()
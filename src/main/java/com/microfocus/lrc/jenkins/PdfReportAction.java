@@ -0,0 +1,235 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.jenkins;
+
+import com.microfocus.lrc.core.ApiClient;
+import com.microfocus.lrc.core.ApiClientFactory;
+import com.microfocus.lrc.core.entity.ServerConfiguration;
+import com.microfocus.lrc.core.entity.TestRunOptions;
+import com.microfocus.lrc.core.service.ReportDownloader;
+import hudson.model.Run;
+import hudson.security.csrf.CrumbIssuer;
+import jenkins.model.Jenkins;
+import jenkins.model.RunAction2;
+import jenkins.util.VirtualFile;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+import javax.servlet.ServletException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+
+/**
+ * PDF report of a test run, generated on demand.
+ * <p>
+ * The build only records the run id, the report is requested and downloaded in background once
+ * someone asks for it from the build page, then archived with the build's artifacts.
+ */
+public final class PdfReportAction implements RunAction2 {
+    private static final String PDF = "pdf";
+
+    @SuppressWarnings("java:S2065")
+    private transient Run<?, ?> run;
+    @SuppressWarnings("java:S2065")
+    private transient Future<?> generating;
+    @SuppressWarnings("java:S2065")
+    private transient volatile String lastError;
+
+    private final String tenantId;
+    private final int projectId;
+    private final int runId;
+
+    PdfReportAction(final Run<?, ?> run, final String tenantId, final int projectId, final int runId) {
+        this.run = run;
+        this.tenantId = tenantId;
+        this.projectId = projectId;
+        this.runId = runId;
+    }
+
+    public String getIconFileName() {
+        return "document.png";
+    }
+
+    public String getDisplayName() {
+        return "Download PDF Report";
+    }
+
+    public String getUrlName() {
+        return "lrc_pdf_report";
+    }
+
+    public int getRunId() {
+        return runId;
+    }
+
+    public String getFileName() {
+        return "lrc_report_" + this.tenantId + "-" + this.runId + "." + PDF;
+    }
+
+    VirtualFile getReport() {
+        return this.run.getArtifactManager().root().child(this.getFileName());
+    }
+
+    /**
+     * serve the pdf report, or show whether it's being generated.
+     * <p>
+     * Generating the report calls LoadRunner Cloud, it's only started by a POST to {@link #doGenerate()}.
+     *
+     * @param req
+     * @param rsp
+     * @throws IOException
+     * @throws ServletException
+     */
+    public void doIndex(final StaplerRequest req, final StaplerResponse rsp) throws IOException, ServletException {
+        VirtualFile report = this.getReport();
+        if (report.isFile()) {
+            URL external = report.toExternalURL();
+            if (external != null) {
+                rsp.sendRedirect2(external.toExternalForm());
+                return;
+            }
+            rsp.setHeader("Content-Disposition", "attachment; filename=\"" + this.getFileName() + "\"");
+            try (InputStream stream = report.open()) {
+                rsp.serveFile(req, stream, report.lastModified(), report.length(), this.getFileName());
+            }
+            return;
+        }
+
+        String html;
+        synchronized (this) {
+            if (this.generating != null && !this.generating.isDone()) {
+                html = page(
+                        "PDF report for run #" + this.runId
+                                + " is being generated, this page will refresh automatically.",
+                        true,
+                        null
+                );
+            } else if (this.lastError != null) {
+                html = page(
+                        "Failed to generate PDF report for run #" + this.runId + ": " + this.lastError + ".",
+                        false,
+                        this.generateForm(req, "Retry")
+                );
+            } else {
+                html = page(
+                        "PDF report for run #" + this.runId + " has not been generated yet.",
+                        false,
+                        this.generateForm(req, "Generate PDF report")
+                );
+            }
+        }
+
+        HttpResponses.literalHtml(html).generateResponse(req, rsp, this);
+    }
+
+    /**
+     * start generating the pdf report in background, unless it's already being generated.
+     *
+     * @return redirect to the report page
+     */
+    @RequirePOST
+    public synchronized HttpResponse doGenerate() throws IOException {
+        if (!this.getReport().isFile() && (this.generating == null || this.generating.isDone())) {
+            this.lastError = null;
+            this.generating = BackgroundTasks.reports().submit(this::generate);
+        }
+        return HttpResponses.redirectTo(".");
+    }
+
+    private String generateForm(final StaplerRequest req, final String label) {
+        String action = req.getContextPath() + "/" + this.run.getUrl() + this.getUrlName() + "/generate";
+        StringBuilder form = new StringBuilder("<form method=\"post\" name=\"generate\" action=\"")
+                .append(hudson.Util.escape(action))
+                .append("\">");
+        CrumbIssuer issuer = Jenkins.get().getCrumbIssuer();
+        if (issuer != null) {
+            form.append("<input type=\"hidden\" name=\"")
+                    .append(hudson.Util.escape(issuer.getCrumbRequestField()))
+                    .append("\" value=\"")
+                    .append(hudson.Util.escape(issuer.getCrumb(req)))
+                    .append("\">");
+        }
+        return form.append("<button type=\"submit\">")
+                .append(hudson.Util.escape(label))
+                .append("</button></form>")
+                .toString();
+    }
+
+    private static String page(final String msg, final boolean refresh, final String form) {
+        String head = refresh ? "<head><meta http-equiv=\"refresh\" content=\"10\"></head>" : "";
+        String body = "<p>" + hudson.Util.escape(msg) + "</p>" + (form != null ? form : "");
+        return "<html>" + head + "<body>" + body + "</body></html>";
+    }
+
+    private void generate() {
+        Jenkins instance = Jenkins.getInstanceOrNull();
+        if (instance == null) {
+            this.lastError = "Jenkins is not available";
+            return;
+        }
+        TestRunBuilder.DescriptorImpl descriptor = instance.getDescriptorByType(TestRunBuilder.DescriptorImpl.class);
+        LoggerProxy loggerProxy = new LoggerProxy();
+        ServerConfiguration config = descriptor.createServerConfiguration(this.projectId, false, loggerProxy);
+
+        File dir = null;
+        try (ApiClient client = ApiClientFactory.getClient(config, loggerProxy)) {
+            ReportDownloader downloader = new ReportDownloader(
+                    client,
+                    loggerProxy,
+                    new TestRunOptions(0, false)
+            );
+            dir = Files.createTempDirectory("lrc-report").toFile();
+            File file = new File(dir, this.getFileName());
+            if (!ReportDownloadAction.downloadReport(client, downloader, this.runId, PDF, file)) {
+                this.lastError = "report is not available";
+                return;
+            }
+            ReportDownloadAction.archive(this.run, dir, this.getFileName());
+        } catch (InterruptedException e) {
+            this.lastError = "interrupted";
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            this.lastError = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            LoggerProxy.getSysLogger().log(
+                    Level.WARNING,
+                    "Failed to generate PDF report for run #" + this.runId,
+                    e
+            );
+        } finally {
+            ReportDownloadAction.deleteQuietly(dir);
+        }
+    }
+
+    @SuppressWarnings("java:S1452")
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public void onAttached(final Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public void onLoad(final Run<?, ?> r) {
+        this.run = r;
+    }
+}
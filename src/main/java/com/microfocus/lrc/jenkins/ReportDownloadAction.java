@@ -0,0 +1,298 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.jenkins;
+
+import com.microfocus.lrc.core.ApiClient;
+import com.microfocus.lrc.core.ApiClientFactory;
+import com.microfocus.lrc.core.entity.ServerConfiguration;
+import com.microfocus.lrc.core.entity.TestRunOptions;
+import com.microfocus.lrc.core.service.ReportDownloader;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.BuildBadgeAction;
+import hudson.model.Run;
+import hudson.model.StreamBuildListener;
+import jenkins.model.Jenkins;
+import jenkins.model.RunAction2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+
+/**
+ * Reports (csv, pdf) of a test run downloaded by a background task on the controller,
+ * so the build result does not wait for them. The files are archived with the build's
+ * artifact manager, the build badge shows the download status.
+ */
+public final class ReportDownloadAction implements RunAction2, BuildBadgeAction {
+
+    public enum Status {
+        PENDING,
+        DOWNLOADING,
+        COMPLETED,
+        FAILED
+    }
+
+    @SuppressWarnings("java:S2065")
+    private transient Run<?, ?> run;
+
+    private final String tenantId;
+    private final int projectId;
+    private final int runId;
+    private final List<String> reportTypes;
+    private volatile Status status = Status.PENDING;
+    private volatile String message;
+    // appended by the download task while the build page reads it
+    private final CopyOnWriteArrayList<String> files = new CopyOnWriteArrayList<>();
+
+    ReportDownloadAction(
+            final Run<?, ?> run,
+            final String tenantId,
+            final int projectId,
+            final int runId,
+            final List<String> reportTypes
+    ) {
+        this.run = run;
+        this.tenantId = tenantId;
+        this.projectId = projectId;
+        this.runId = runId;
+        this.reportTypes = new ArrayList<>(reportTypes);
+    }
+
+    public String getIconFileName() {
+        return null;
+    }
+
+    public String getDisplayName() {
+        return "LoadRunner Cloud reports: " + this.status.name().toLowerCase();
+    }
+
+    public String getUrlName() {
+        return null;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public int getRunId() {
+        return runId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public List<String> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    /**
+     * icon of the build badge.
+     *
+     * @return the icon class name
+     */
+    public String getBadgeIcon() {
+        switch (this.status) {
+            case COMPLETED:
+                return "icon-document";
+            case FAILED:
+                return "icon-error";
+            default:
+                return "icon-clock";
+        }
+    }
+
+    /**
+     * tooltip of the build badge.
+     *
+     * @return the tooltip text
+     */
+    public String getBadgeText() {
+        String text = this.getDisplayName();
+        if (this.message != null) {
+            text += " (" + this.message + ")";
+        }
+        return text;
+    }
+
+    /**
+     * start downloading in background, returns immediately.
+     */
+    void start() {
+        BackgroundTasks.reports().submit(this::download);
+    }
+
+    private void download() {
+        this.status = Status.DOWNLOADING;
+        this.save();
+
+        Jenkins instance = Jenkins.getInstanceOrNull();
+        if (instance == null) {
+            this.finish(Status.FAILED, "Jenkins is not available");
+            return;
+        }
+        TestRunBuilder.DescriptorImpl descriptor = instance.getDescriptorByType(TestRunBuilder.DescriptorImpl.class);
+        LoggerProxy loggerProxy = new LoggerProxy();
+        ServerConfiguration config = descriptor.createServerConfiguration(this.projectId, false, loggerProxy);
+
+        List<String> failed = new ArrayList<>();
+        File dir = null;
+        try (ApiClient client = ApiClientFactory.getClient(config, loggerProxy)) {
+            ReportDownloader downloader = new ReportDownloader(
+                    client,
+                    loggerProxy,
+                    new TestRunOptions(0, false)
+            );
+            dir = Files.createTempDirectory("lrc-reports").toFile();
+
+            for (String reportType : this.reportTypes) {
+                String fileName = downloader.genFileName(reportType, this.runId);
+                if (downloadReport(client, downloader, this.runId, reportType, new File(dir, fileName))) {
+                    archive(this.run, dir, fileName);
+                    this.files.add(fileName);
+                } else {
+                    failed.add(reportType);
+                }
+            }
+        } catch (InterruptedException e) {
+            this.finish(Status.FAILED, "interrupted");
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            LoggerProxy.getSysLogger().log(
+                    Level.WARNING,
+                    "Failed to download reports of run #" + this.runId,
+                    e
+            );
+            this.finish(Status.FAILED, e.getMessage());
+            return;
+        } finally {
+            deleteQuietly(dir);
+        }
+
+        if (failed.isEmpty()) {
+            this.finish(Status.COMPLETED, null);
+        } else {
+            this.finish(Status.FAILED, "not available: " + String.join(", ", failed));
+        }
+    }
+
+    /**
+     * request a report and download it to the given file.
+     *
+     * @return false if the report is not available
+     */
+    static boolean downloadReport(
+            final ApiClient client,
+            final ReportDownloader downloader,
+            final int runId,
+            final String reportType,
+            final File file
+    ) throws IOException, InterruptedException {
+        Integer reportId = downloader.requestReport(runId, reportType);
+        if (reportId == null) {
+            return false;
+        }
+
+        try (InputStream stream = client.getReport(reportId)) {
+            if (stream == null) {
+                return false;
+            }
+            Files.copy(stream, file.toPath());
+        }
+
+        return true;
+    }
+
+    /**
+     * archive a downloaded report with the artifact manager of the build,
+     * it may keep the artifacts outside of the controller.
+     *
+     * @param run      the build
+     * @param dir      directory of the downloaded report
+     * @param fileName name of the report, also its path in the artifacts
+     */
+    static void archive(final Run<?, ?> run, final File dir, final String fileName)
+            throws IOException, InterruptedException {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        StreamBuildListener listener = new StreamBuildListener(log, StandardCharsets.UTF_8);
+        run.getArtifactManager().archive(
+                new FilePath(dir),
+                new Launcher.LocalLauncher(listener),
+                listener,
+                Collections.singletonMap(fileName, fileName)
+        );
+        if (log.size() > 0) {
+            LoggerProxy.getSysLogger().fine(() -> "Archived " + fileName + ": " + log.toString());
+        }
+    }
+
+    static void deleteQuietly(final File dir) {
+        if (dir == null) {
+            return;
+        }
+        try {
+            Util.deleteRecursive(dir);
+        } catch (IOException e) {
+            LoggerProxy.getSysLogger().log(Level.WARNING, "Failed to delete " + dir, e);
+        }
+    }
+
+    private void finish(final Status result, final String msg) {
+        this.message = msg;
+        this.status = result;
+        this.save();
+    }
+
+    private void save() {
+        try {
+            this.run.save();
+        } catch (IOException e) {
+            LoggerProxy.getSysLogger().log(Level.WARNING, "Failed to save build " + this.run, e);
+        }
+    }
+
+    @SuppressWarnings("java:S1452")
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public void onAttached(final Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public void onLoad(final Run<?, ?> r) {
+        this.run = r;
+        if (this.status == Status.PENDING || this.status == Status.DOWNLOADING) {
+            // the background task does not survive a restart
+            this.status = Status.FAILED;
+            this.message = "interrupted by Jenkins restart";
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.jenkins
+
+import com.google.gson.Gson
+import com.microfocus.lrc.core.entity.TestRunData
+import jenkins.model.Jenkins
+import jenkins.util.SystemProperties
+import java.io.File
+import java.io.IOException
+import java.io.InputStreamReader
+import java.io.OutputStreamWriter
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.util.logging.Level
+import java.util.zip.GZIPInputStream
+import java.util.zip.GZIPOutputStream
+
+/**
+ * Controller side cache of raw data (results and transactions) of ended test runs.
+ * Data of an ended run never changes, so it is kept on disk (one gzip file per run) and
+ * evicted in LRU order when the total size exceeds the limit. Shared by all jobs.
+ */
+class RunDataCache internal constructor(
+    private val dir: File,
+    private val maxBytes: Long
+) {
+    companion object {
+        private const val FILE_SUFFIX = ".json.gz"
+        private const val DEFAULT_MAX_SIZE_MB = 64L
+
+        private var shared: RunDataCache? = null
+
+        @JvmStatic
+        @Synchronized
+        fun getInstance(): RunDataCache {
+            val dir = File(Jenkins.get().rootDir, "lrc-run-data-cache")
+            val existed = shared
+            // the root dir only changes when Jenkins restarts in the same JVM, e.g. in tests
+            if (existed != null && existed.dir == dir) {
+                return existed
+            }
+
+            val maxSizeMB = SystemProperties.getLong(
+                RunDataCache::class.java.name + ".maxSizeMB",
+                DEFAULT_MAX_SIZE_MB
+            )
+            val created = RunDataCache(dir, maxSizeMB * 1024 * 1024)
+            shared = created
+            return created
+        }
+
+        @JvmStatic
+        fun key(tenantId: String, runId: Int): String {
+            // tenant id is used as part of the file name
+            return tenantId.replace(Regex("[^A-Za-z0-9_-]"), "_") + "-" + runId
+        }
+    }
+
+    // key -> file size, in access order
+    private val index = LinkedHashMap<String, Long>(16, 0.75f, true)
+    private var totalBytes = 0L
+    private var loaded = false
+
+    @Synchronized
+    fun get(tenantId: String, runId: Int): TestRunData? {
+        this.loadIndex()
+        val key = key(tenantId, runId)
+        if (this.index[key] == null) {
+            return null
+        }
+
+        val file = this.fileOf(key)
+        return try {
+            val runData = GZIPInputStream(Files.newInputStream(file.toPath())).use { input ->
+                InputStreamReader(input, StandardCharsets.UTF_8).use { reader ->
+                    Gson().fromJson(reader, TestRunData::class.java)
+                }
+            }
+            // keep the LRU order across restarts
+            file.setLastModified(System.currentTimeMillis())
+            runData
+        } catch (e: Exception) {
+            LoggerProxy.sysLogger.log(Level.WARNING, "Failed to read cached run data $key, " + e.message)
+            this.remove(key)
+            null
+        }
+    }
+
+    /**
+     * cache the data of an ended run, merged with what is already cached for the same run.
+     */
+    @Synchronized
+    fun put(runData: TestRunData) {
+        this.loadIndex()
+        val key = key(runData.tenantId, runData.runId)
+        if (this.index[key] != null) {
+            val existed = this.get(runData.tenantId, runData.runId)
+            if (existed != null && existed.isComplete()) {
+                return
+            }
+            runData.merge(existed)
+        }
+
+        try {
+            Files.createDirectories(this.dir.toPath())
+            val tmp = File.createTempFile(key, ".tmp", this.dir)
+            GZIPOutputStream(Files.newOutputStream(tmp.toPath())).use { output ->
+                OutputStreamWriter(output, StandardCharsets.UTF_8).use { writer ->
+                    Gson().toJson(runData, writer)
+                }
+            }
+            val file = this.fileOf(key)
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING)
+
+            this.totalBytes -= this.index[key] ?: 0L
+            this.index[key] = file.length()
+            this.totalBytes += file.length()
+            this.evict()
+        } catch (e: IOException) {
+            LoggerProxy.sysLogger.log(Level.WARNING, "Failed to cache run data $key, " + e.message)
+        }
+    }
+
+    private fun evict() {
+        val it = this.index.entries.iterator()
+        // always keep the most recent one
+        while (this.totalBytes > this.maxBytes && this.index.size > 1 && it.hasNext()) {
+            val eldest = it.next()
+            val eldestKey = eldest.key
+            this.totalBytes -= eldest.value
+            it.remove()
+            if (!this.fileOf(eldestKey).delete()) {
+                LoggerProxy.sysLogger.log(Level.FINE, "Failed to delete cached run data $eldestKey")
+            }
+        }
+    }
+
+    private fun remove(key: String) {
+        val size = this.index.remove(key) ?: return
+        this.totalBytes -= size
+        this.fileOf(key).delete()
+    }
+
+    private fun fileOf(key: String): File {
+        return File(this.dir, key + FILE_SUFFIX)
+    }
+
+    // rebuild the index from disk once, the least recently modified files come first
+    private fun loadIndex() {
+        if (this.loaded) {
+            return
+        }
+        this.loaded = true
+        val files = this.dir.listFiles { f -> f.isFile && f.name.endsWith(FILE_SUFFIX) } ?: return
+        files.sortBy { it.lastModified() }
+        files.forEach { f ->
+            val size = f.length()
+            this.index[f.name.removeSuffix(FILE_SUFFIX)] = size
+            this.totalBytes += size
+        }
+        this.evict()
+    }
+}
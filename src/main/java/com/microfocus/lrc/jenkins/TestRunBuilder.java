@@ -44,7 +44,6 @@ import org.kohsuke.stapler.verb.POST;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.*;
 
@@ -432,6 +431,47 @@ public final class TestRunBuilder extends Builder implements SimpleBuildStep {
 
         //#endregion
 
+        /**
+         * create the server configuration (with proxy) from the system settings.
+         *
+         * @param projectId
+         * @param sendEmail
+         * @param loggerProxy
+         * @return the server configuration
+         */
+        ServerConfiguration createServerConfiguration(
+                final int projectId,
+                final boolean sendEmail,
+                final LoggerProxy loggerProxy
+        ) {
+            String usr = this.getUsername();
+            String pwd = (this.getPassword() != null) ? this.getPassword().getPlainText() : "";
+            if (Boolean.TRUE.equals(this.getUseOAuth())) {
+                usr = this.getClientId();
+                pwd = (this.getClientSecret() != null) ? this.getClientSecret().getPlainText() : "";
+            }
+
+            ServerConfiguration config = new ServerConfiguration(
+                    this.getUrl(),
+                    usr,
+                    pwd,
+                    this.getTenantId(),
+                    projectId,
+                    sendEmail
+            );
+            config.setProxyConfiguration(ConfigurationFactory.createProxyConfiguration(
+                    this.getUrl(),
+                    this.getUseProxy(),
+                    this.getProxyHost(),
+                    this.getProxyPort(),
+                    this.getProxyUsername(),
+                    (this.getProxyPassword() != null) ? this.getProxyPassword().getPlainText() : "",
+                    loggerProxy
+            ));
+
+            return config;
+        }
+
         @SuppressWarnings({"java:S107", "checkstyle:ParameterNumber", "checkstyle:HiddenField"})
         @POST
         public FormValidation doTestConnection(
@@ -495,11 +535,27 @@ public final class TestRunBuilder extends Builder implements SimpleBuildStep {
     private boolean sendEmail;
     private String projectId;
 
-    private String getProjectIdAtRunTime(final Run<?, ?> run, final Launcher launcher) {
+    private static final String PROJECT_ID_PARAM = "LRC_PROJECT_ID";
+    private static final String TEST_ID_PARAM = "LRC_TEST_ID";
+
+    /**
+     * the parameters / env variables read by the build step, resolved once per build.
+     */
+    private static List<String> runTimeKeys() {
+        List<String> keys = new ArrayList<>();
+        keys.add(PROJECT_ID_PARAM);
+        keys.add(TEST_ID_PARAM);
+        for (OptionInEnvVars key : OptionInEnvVars.values()) {
+            keys.add(key.name());
+        }
+        return keys;
+    }
+
+    private String getProjectIdAtRunTime(final Run<?, ?> run, final Map<String, String> runTimeEnv) {
         // check if the job is a pipeline (`WorkflowRun`)
         // if not, use env vars (run parameters) to override job configurations
         if (run instanceof AbstractBuild) {
-            String projectIDFromParam = EnvVarsUtil.getEnvVar(run, launcher, "LRC_PROJECT_ID");
+            String projectIDFromParam = runTimeEnv.get(PROJECT_ID_PARAM);
             if (StringUtils.isNotBlank(projectIDFromParam)) {
                 logFieldReadFromParam("project id", projectIDFromParam, run.getId());
                 return projectIDFromParam.trim();
@@ -509,9 +565,9 @@ public final class TestRunBuilder extends Builder implements SimpleBuildStep {
         return this.projectId;
     }
 
-    private String getTestIdAtRunTime(final Run<?, ?> run, final Launcher launcher) {
+    private String getTestIdAtRunTime(final Run<?, ?> run, final Map<String, String> runTimeEnv) {
         if (run instanceof AbstractBuild) {
-            String testIDFromParam = EnvVarsUtil.getEnvVar(run, launcher, "LRC_TEST_ID");
+            String testIDFromParam = runTimeEnv.get(TEST_ID_PARAM);
             if (StringUtils.isNotBlank(testIDFromParam)) {
                 logFieldReadFromParam("test id", testIDFromParam, run.getId());
                 return testIDFromParam.trim();
@@ -620,7 +676,9 @@ public final class TestRunBuilder extends Builder implements SimpleBuildStep {
             return;
         }
 
-        ServerConfiguration serverConfiguration = createServerConfiguration(descriptor, run, launcher);
+        // a single call to the node, the values stay the same for the rest of the build
+        Map<String, String> runTimeEnv = EnvVarsUtil.snapshot(run, launcher, runTimeKeys());
+        ServerConfiguration serverConfiguration = createServerConfiguration(descriptor, run, runTimeEnv);
         ProxyConfiguration proxyConfiguration = ConfigurationFactory.createProxyConfiguration(
                 serverConfiguration.getUrl(),
                 descriptor.useProxy,
@@ -632,8 +690,8 @@ public final class TestRunBuilder extends Builder implements SimpleBuildStep {
         );
         serverConfiguration.setProxyConfiguration(proxyConfiguration);
 
-        int testIdVal = Integer.parseInt(this.getTestIdAtRunTime(run, launcher));
-        Map<String, String> envVarsObj = this.readConfigFromEnvVars(run, launcher);
+        int testIdVal = Integer.parseInt(this.getTestIdAtRunTime(run, runTimeEnv));
+        Map<String, String> envVarsObj = this.readConfigFromEnvVars(runTimeEnv);
         TestRunOptions opt = new TestRunOptions(
                 testIdVal,
                 this.sendEmail,
@@ -641,11 +699,15 @@ public final class TestRunBuilder extends Builder implements SimpleBuildStep {
                 Boolean.parseBoolean(envVarsObj.get(OptionInEnvVars.LRC_DEBUG_LOG.name())),
                 Boolean.parseBoolean(envVarsObj.get(OptionInEnvVars.LRC_TEST_MODE.name()))
         );
+        opt.setDeferPdfReport(Boolean.parseBoolean(envVarsObj.get(OptionInEnvVars.LRC_DEFER_PDF_REPORT.name())));
+        opt.setAsyncReports(Boolean.parseBoolean(envVarsObj.get(OptionInEnvVars.LRC_ASYNC_REPORTS.name())));
+        opt.setKeepRunData(mayPublishTrending(run));
 
         RunTestCallable callable = new RunTestCallable(
                 listener,
                 serverConfiguration,
-                opt
+                opt,
+                workspace
         );
 
         LoadTestRun testRun = null;
@@ -688,31 +750,47 @@ public final class TestRunBuilder extends Builder implements SimpleBuildStep {
             }
         });
 
-        testRun.getReportsByteArray().forEach((fileName, content) -> {
-            FilePath file = workspace.child(fileName);
-            try (OutputStream out = file.write()) {
-                out.write(content);
-                this.loggerProxy.info("Report file " + file.getRemote() + " created.");
-            } catch (IOException e) {
-                this.loggerProxy.error("Failed to create report file " + file.getRemote());
-            } catch (InterruptedException e) {
-                this.loggerProxy.error("Interrupted. Failed to create report file " + file.getRemote());
-                Thread.currentThread().interrupt();
-            }
-        });
-
         // output vars to jenkins env
         EnvVarsUtil.putEnvVar(run, "LRC_RUN_ID", String.valueOf(testRun.getId()));
 
+        if (testRun.getHasReport() && opt.getDeferPdfReport() && !opt.getSkipPdfReport()) {
+            run.replaceAction(new PdfReportAction(
+                    run,
+                    serverConfiguration.getTenantId(),
+                    serverConfiguration.getProjectId(),
+                    testRun.getId()
+            ));
+            this.loggerProxy.info("PDF report will be generated on demand from the build page.");
+        }
+
+        if (testRun.getHasReport() && opt.getAsyncReports()) {
+            this.startReportDownload(run, serverConfiguration, opt, testRun.getId());
+        }
+
+        if (testRun.getTransactions() != null) {
+            TestRunData runData = new TestRunData(
+                    serverConfiguration.getTenantId(),
+                    testRun.getId(),
+                    testRun.getResults(),
+                    testRun.getTransactions()
+            );
+            if (opt.getKeepRunData()) {
+                // the trending report of this build reuses them instead of fetching them again
+                run.replaceAction(new TestRunDataAction(runData));
+            }
+            if (testRun.getStatusEnum().isEnded()) {
+                // data of an ended run never change, trending reports of other builds could reuse them
+                RunDataCache.getInstance().put(runData);
+            }
+        }
+
         if (testRun.getHasReport()) {
-            // remove reports data to write a smaller json
+            // reports data are not kept with the build
             testRun.getReports().clear();
             testRun.getReportsByteArray().clear();
-            JsonObject buildResult = new JsonObject();
-            buildResult.addProperty("testOptions", new Gson().toJson(opt));
-            buildResult.addProperty("testRun", new Gson().toJson(testRun));
-
-            workspace.child(String.format("lrc_run_result_%s", run.getId())).write(buildResult.toString(), "UTF-8");
+            testRun.setTransactions(null);
+            testRun.setResults(null);
+            run.replaceAction(new TestRunResultAction(opt, testRun));
         }
 
         if (testRun.getStatusEnum().isSuccess()) {
@@ -722,10 +800,45 @@ public final class TestRunBuilder extends Builder implements SimpleBuildStep {
         }
     }
 
-    private Map<String, String> readConfigFromEnvVars(final Run<?, ?> run, final Launcher launcher) {
+    /**
+     * true if the trending report may be published by the same build.
+     * a pipeline may run lrcGenTrendingReport in any later step, only freestyle projects are known not to.
+     */
+    private static boolean mayPublishTrending(final Run<?, ?> run) {
+        return !(run instanceof AbstractBuild)
+                || ((AbstractBuild<?, ?>) run).getProject().getPublishersList().get(TestRunPublisher.class) != null;
+    }
+
+    private void startReportDownload(
+            final Run<?, ?> run,
+            final ServerConfiguration serverConfiguration,
+            final TestRunOptions opt,
+            final int runId
+    ) {
+        List<String> reportTypes = new ArrayList<>();
+        reportTypes.add("csv");
+        if (!opt.getSkipPdfReport() && !opt.getDeferPdfReport()) {
+            reportTypes.add("pdf");
+        }
+
+        ReportDownloadAction action = new ReportDownloadAction(
+                run,
+                serverConfiguration.getTenantId(),
+                serverConfiguration.getProjectId(),
+                runId,
+                reportTypes
+        );
+        run.replaceAction(action);
+        action.start();
+        this.loggerProxy.info(
+                "Reports (" + String.join(", ", reportTypes) + ") will be downloaded to build artifacts in background."
+        );
+    }
+
+    private Map<String, String> readConfigFromEnvVars(final Map<String, String> runTimeEnv) {
         Map<String, String> map = new HashMap<>();
         for (OptionInEnvVars key : OptionInEnvVars.values()) {
-            String value = EnvVarsUtil.getEnvVar(run, launcher, key.name());
+            String value = runTimeEnv.get(key.name());
             if (StringUtils.isNotBlank(value) && !value.equals("0")
                     && !value.equalsIgnoreCase("false") && !value.equalsIgnoreCase("no")) {
                 this.loggerProxy.info("Read " + key.name() + " from parameters / env variables: " + value);
@@ -791,7 +904,7 @@ public final class TestRunBuilder extends Builder implements SimpleBuildStep {
     private ServerConfiguration createServerConfiguration(
             final DescriptorImpl descriptor,
             final Run<?, ?> run,
-            final Launcher launcher) {
+            final Map<String, String> runTimeEnv) {
         String usr = descriptor.getUsername();
         String pwd = (descriptor.getPassword() != null) ? descriptor.getPassword() .getPlainText() : "";
         if (Boolean.TRUE.equals(descriptor.getUseOAuth())) {
@@ -803,7 +916,7 @@ public final class TestRunBuilder extends Builder implements SimpleBuildStep {
                 usr,
                 pwd,
                 descriptor.getTenantId(),
-                Integer.parseInt(this.getProjectIdAtRunTime(run, launcher)),
+                Integer.parseInt(this.getProjectIdAtRunTime(run, runTimeEnv)),
                 this.sendEmail
         );
         printJobParameters(config);
@@ -834,15 +947,18 @@ public final class TestRunBuilder extends Builder implements SimpleBuildStep {
         private final ServerConfiguration serverConfiguration;
         private final TestRunOptions testRunOptions;
         private final TaskListener listener;
+        private final FilePath workspace;
 
         RunTestCallable(
                 final TaskListener listener,
                 final ServerConfiguration serverConfiguration,
-                final TestRunOptions testRunOptions
+                final TestRunOptions testRunOptions,
+                final FilePath workspace
         ) {
             this.listener = listener;
             this.serverConfiguration = serverConfiguration;
             this.testRunOptions = testRunOptions;
+            this.workspace = workspace;
         }
 
         @Override
@@ -854,8 +970,17 @@ public final class TestRunBuilder extends Builder implements SimpleBuildStep {
                     logger,
                     this.testRunOptions
             );
+            // the xml and transactions csv reports are streamed to the workspace here on the agent,
+            // only the run goes back to the controller
+            runner.setReportOutput(fileName -> this.workspace.child(fileName).write());
             try {
-                return runner.run();
+                LoadTestRun testRun = runner.run();
+                if (!this.testRunOptions.getKeepRunData()) {
+                    // the reports are written here, the run data is only sent back for a trending report of the build
+                    testRun.setTransactions(null);
+                    testRun.setResults(null);
+                }
+                return testRun;
             } catch (IOException e) {
                 if (Thread.interrupted()) {
                     throw new InterruptedException("Jenkins job is interrupted.");
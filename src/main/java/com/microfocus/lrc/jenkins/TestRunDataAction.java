@@ -0,0 +1,40 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.jenkins;
+
+import com.microfocus.lrc.core.entity.TestRunData;
+import hudson.model.InvisibleAction;
+
+/**
+ * Results and transactions of the test run fetched by {@link TestRunBuilder}, handed off to
+ * {@link TestRunPublisher} in the same build so it doesn't log in and fetch them again.
+ * <p>
+ * The data is only kept in memory, after a restart the publisher falls back to {@link RunDataCache}
+ * and the API. It's attached to pipeline builds and to builds having a {@link TestRunPublisher},
+ * which removes it once it's used, otherwise it's removed when the build completes.
+ */
+public final class TestRunDataAction extends InvisibleAction {
+    @SuppressWarnings("java:S2065")
+    private final transient TestRunData runData;
+
+    TestRunDataAction(final TestRunData runData) {
+        this.runData = runData;
+    }
+
+    /**
+     * the data of the run, null if the build has been reloaded.
+     */
+    public TestRunData getRunData() {
+        return runData;
+    }
+}
@@ -12,8 +12,7 @@
 
 package com.microfocus.lrc.jenkins;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import com.microfocus.lrc.core.TrendingCalculator;
 import com.microfocus.lrc.core.Utils;
 import com.microfocus.lrc.core.entity.*;
 import com.microfocus.lrc.core.service.Runner;
@@ -42,7 +41,11 @@ import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.verb.POST;
 
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 
 public final class TestRunPublisher extends Recorder implements SimpleBuildStep {
 
@@ -81,13 +84,16 @@ public final class TestRunPublisher extends Recorder implements SimpleBuildStep
         return BuildStepMonitor.NONE;
     }
 
-    private static class PublishReportCallable extends MasterToSlaveCallable<TrendingDataWrapper, RuntimeException> {
+    private static class PublishReportCallable extends MasterToSlaveCallable<TrendingFetchResult, RuntimeException> {
 
         private final ServerConfiguration serverConfiguration;
         private final TrendingConfiguration trendingConfiguration;
         private final LoadTestRun testRun;
         private final TestRunOptions options;
         private final TaskListener listener;
+        private final HashMap<Integer, TestRunData> cachedRunData;
+        // the saved trending model, the column of the fetched run is added here instead of on the controller
+        private final TrendingUpdate trendingUpdate;
 
         private PrintStream logger() {
             return this.listener.getLogger();
@@ -99,24 +105,44 @@ public final class TestRunPublisher extends Recorder implements SimpleBuildStep
                 final TrendingConfiguration trendingConfiguration,
                 final LoadTestRun testRun,
                 final TestRunOptions options,
-                final TaskListener listener
+                final TaskListener listener,
+                final HashMap<Integer, TestRunData> cachedRunData,
+                final TrendingUpdate trendingUpdate
         ) {
             this.serverConfiguration = serverConfiguration;
             this.trendingConfiguration = trendingConfiguration;
             this.testRun = testRun;
             this.options = options;
             this.listener = listener;
+            this.cachedRunData = cachedRunData;
+            this.trendingUpdate = trendingUpdate;
         }
 
         @Override
-        public TrendingDataWrapper call() throws RuntimeException {
+        public TrendingFetchResult call() throws RuntimeException {
             try {
                 Runner runner = new Runner(
                         serverConfiguration,
                         this.listener.getLogger(),
                         options
                 );
-                return runner.fetchTrending(testRun, trendingConfiguration.getBenchmark());
+                TrendingFetchResult result = runner.fetchTrending(
+                        testRun,
+                        trendingConfiguration.getBenchmark(),
+                        cachedRunData
+                );
+                if (this.trendingUpdate != null) {
+                    // only the updated model goes back, the controller saves and renders it
+                    StringBuilder logs = new StringBuilder();
+                    result.setTrendingState(TrendingCalculator.addLatest(
+                            this.trendingUpdate,
+                            result.getTrendingDataWrapper(),
+                            this.trendingConfiguration,
+                            logs
+                    ));
+                    result.setGeneratorLogs(logs.toString());
+                }
+                return result;
             } catch (Exception e) {
                 logger().println("Error while publishing report: " + e.getMessage());
                 return null;
@@ -124,6 +150,25 @@ public final class TestRunPublisher extends Recorder implements SimpleBuildStep
         }
     }
 
+    /**
+     * the trending data built on the controller from the cached data of the run, without calling the agent.
+     * null if something has to be fetched, the benchmark run is always fetched.
+     */
+    private static TrendingDataWrapper fromCachedRunData(
+            final HashMap<Integer, TestRunData> cachedRunData,
+            final LoadTestRun testRun,
+            final String tenantId,
+            final Integer benchmarkId,
+            final LoggerProxy loggerProxy
+    ) {
+        TestRunData runData = cachedRunData.get(testRun.getId());
+        if (benchmarkId != null || runData == null || !runData.isComplete()) {
+            return null;
+        }
+        loggerProxy.info("Reusing the results and transactions of run #" + testRun.getId());
+        return new TrendingDataWrapper(testRun, runData.getResults(), runData.getTransactions(), tenantId, null);
+    }
+
     private TestRunReportBuildAction saveTrendingDataToJenkinsAction(
             final Run<?, ?> build,
             final int runId,
@@ -160,29 +205,14 @@ public final class TestRunPublisher extends Recorder implements SimpleBuildStep
         loggerProxy.info("TestPublisher started for build #" + build.getNumber());
         loggerProxy.info("Workspace: " + workspace);
 
-        FilePath buildResultPath = workspace.child(String.format("lrc_run_result_%s", build.getId()));
-        if (!buildResultPath.exists()) {
-            loggerProxy.error(
-                    "Build result file not found: " + buildResultPath + ", make sure run LRC build step first."
-            );
-            build.setResult(Result.FAILURE);
-            return;
-        }
-
-        TestRunOptions opt;
-        LoadTestRun testRun;
-
-        try {
-            JsonObject buildResult = new Gson().fromJson(buildResultPath.readToString(), JsonObject.class);
-            opt = new Gson().fromJson(buildResult.get("testOptions").getAsString(), TestRunOptions.class);
-            testRun = new Gson().fromJson(buildResult.get("testRun").getAsString(), LoadTestRun.class);
-        } catch (InterruptedException e) {
-            throw e;
-        } catch (Exception e) {
-            loggerProxy.error("Error while parsing build result file: " + e.getMessage());
+        TestRunResultAction buildResult = build.getAction(TestRunResultAction.class);
+        if (buildResult == null) {
+            loggerProxy.error("Build result not found, make sure run LRC build step first.");
             build.setResult(Result.FAILURE);
             return;
         }
+        TestRunOptions opt = buildResult.getTestOptions();
+        LoadTestRun testRun = buildResult.getTestRun();
 
         Jenkins instance = Jenkins.getInstanceOrNull();
         if (instance == null) {
@@ -194,36 +224,63 @@ public final class TestRunPublisher extends Recorder implements SimpleBuildStep
         TestRunBuilder.DescriptorImpl descriptor = instance.getDescriptorByType(
                 TestRunBuilder.DescriptorImpl.class
         );
-        ServerConfiguration serverConfiguration = readServerConfiguration(opt, testRun, descriptor);
-        ProxyConfiguration proxyConfig = ConfigurationFactory.createProxyConfiguration(
-                serverConfiguration.getUrl(),
-                descriptor.getUseProxy(),
-                descriptor.getProxyHost(),
-                descriptor.getProxyPort(),
-                descriptor.getProxyUsername(),
-                (descriptor.getProxyPassword() != null) ? descriptor.getProxyPassword().getPlainText() : "",
+        ServerConfiguration serverConfiguration = descriptor.createServerConfiguration(
+                testRun.getLoadTest().getProjectId(),
+                opt.getSendEmail(),
                 loggerProxy
         );
-        serverConfiguration.setProxyConfiguration(proxyConfig);
 
         String uiStatus = testRun.getDetailedStatus();
 
         TrendingConfiguration trendingCfg = this.getTrendingConfig();
 
-        TrendingDataWrapper wrapper = null;
-        try {
-            PublishReportCallable callable = new PublishReportCallable(
-                    serverConfiguration,
-                    trendingCfg,
-                    testRun,
-                    opt,
-                    listener);
-            VirtualChannel channel = launcher.getChannel();
-            if (channel != null) {
-                wrapper = channel.call(callable);
+        HashMap<Integer, TestRunData> cachedRunData = readCachedRunData(
+                build,
+                serverConfiguration.getTenantId(),
+                testRun,
+                trendingCfg.getBenchmark()
+        );
+        TrendingDataWrapper wrapper = fromCachedRunData(
+                cachedRunData,
+                testRun,
+                serverConfiguration.getTenantId(),
+                trendingCfg.getBenchmark(),
+                loggerProxy
+        );
+        // created before the action is attached, a new store is filled from the build history
+        TrendingStore store = TrendingStore.of(build.getParent());
+        TrendingUpdate trendingUpdate = null;
+        TrendingFetchResult result = null;
+        if (wrapper == null) {
+            trendingUpdate = TrendingReport.prepareUpdate(
+                    store,
+                    build.getNumber(),
+                    build.getTimeInMillis(),
+                    testRun.getLoadTest().getId(),
+                    serverConfiguration.getTenantId(),
+                    trendingCfg
+            );
+            try {
+                PublishReportCallable callable = new PublishReportCallable(
+                        serverConfiguration,
+                        trendingCfg,
+                        testRun,
+                        opt,
+                        listener,
+                        cachedRunData,
+                        trendingUpdate
+                );
+                VirtualChannel channel = launcher.getChannel();
+                if (channel != null) {
+                    result = channel.call(callable);
+                    if (result != null) {
+                        wrapper = result.getTrendingDataWrapper();
+                        result.getEndedRunsData().forEach(RunDataCache.getInstance()::put);
+                    }
+                }
+            } catch (IOException e) {
+                Utils.logException(loggerProxy, "PublishReport failed. ", e);
             }
-        } catch (IOException e) {
-            Utils.logException(loggerProxy, "PublishReport failed. ", e);
         }
 
         if (wrapper == null) {
@@ -247,6 +304,14 @@ public final class TestRunPublisher extends Recorder implements SimpleBuildStep
             return;
         }
 
+        if (TrendingStore.hasTrendingData(wrapper)) {
+            try {
+                store.append(build.getNumber(), build.getTimeInMillis(), wrapper);
+            } catch (IOException e) {
+                loggerProxy.error("Failed to save trending data of build #" + build.getNumber() + ", " + e.getMessage());
+            }
+        }
+
         try {
             String filename = "lrc_report_trend_"
                     + serverConfiguration.getTenantId()
@@ -254,15 +319,36 @@ public final class TestRunPublisher extends Recorder implements SimpleBuildStep
                     + "(build_" + build.getId() + ")"
                     + ".html";
             FilePath filePath = workspace.child(filename);
-            buildAction.setTrendingReportHTML(
-                    TrendingReport.generateReport(
-                            build.getParent(),
-                            trendingConfig,
-                            false,
-                            false
-                    )
+            TrendingState computed = result == null ? null : result.getTrendingState();
+            String reportData = computed == null ? null : TrendingReport.saveComputed(
+                    store,
+                    trendingUpdate,
+                    computed,
+                    trendingConfig,
+                    buildAction.getSummary(),
+                    result.getGeneratorLogs()
             );
-            filePath.write(buildAction.getTrendingReportHTML(), "UTF-8");
+            if (reportData == null) {
+                // the saved model of the previous builds is updated with this build only
+                reportData = TrendingReport.generateReport(build.getParent(), trendingConfig, false, false);
+            }
+            if (reportData == null) {
+                loggerProxy.error("Failed to generate trending report.");
+                return;
+            }
+            if (!buildAction.setTrendingReportData(reportData)) {
+                // the page is still written, the project page will regenerate the report
+                loggerProxy.error("Failed to save trending report data.");
+            }
+            // the workspace file is a standalone page, with the scripts, styles and data inlined
+            boolean written;
+            try (Writer writer = new OutputStreamWriter(filePath.write(), StandardCharsets.UTF_8)) {
+                written = TrendingReport.writePage(reportData, null, writer);
+            }
+            if (!written) {
+                loggerProxy.error("Failed to generate trending report file.");
+                return;
+            }
             loggerProxy.info("Trending report file generated: " + filePath.getRemote());
             build.setResult(Result.SUCCESS);
         } catch (IOException ex) {
@@ -270,30 +356,39 @@ public final class TestRunPublisher extends Recorder implements SimpleBuildStep
         }
     }
 
-    @NonNull
-    private ServerConfiguration readServerConfiguration(
-            final TestRunOptions opt,
+    private HashMap<Integer, TestRunData> readCachedRunData(
+            final Run<?, ?> build,
+            final String tenantId,
             final LoadTestRun testRun,
-            final TestRunBuilder.DescriptorImpl descriptor
+            final Integer benchmarkId
     ) {
-        ServerConfiguration serverConfiguration;
-        String usr = descriptor.getUsername();
-        String pwd = (descriptor.getPassword() != null) ? descriptor.getPassword().getPlainText() : "";
-        if (Boolean.TRUE.equals(descriptor.getUseOAuth())) {
-            usr = descriptor.getClientId();
-            pwd = (descriptor.getClientSecret() != null) ? descriptor.getClientSecret().getPlainText() : "";
-        }
-
-        serverConfiguration = new ServerConfiguration(
-                descriptor.getUrl(),
-                usr,
-                pwd,
-                descriptor.getTenantId(),
-                testRun.getLoadTest().getProjectId(),
-                opt.getSendEmail()
-        );
+        HashMap<Integer, TestRunData> cached = new HashMap<>();
+        RunDataCache cache = RunDataCache.getInstance();
+        TestRunData runData = cache.get(tenantId, testRun.getId());
+
+        // handed off by the build step of this build, it's used once
+        TestRunDataAction handedOff = build.getAction(TestRunDataAction.class);
+        if (handedOff != null) {
+            build.removeAction(handedOff);
+            TestRunData buildRunData = handedOff.getRunData();
+            if (buildRunData != null
+                    && buildRunData.getRunId() == testRun.getId()
+                    && buildRunData.getTenantId().equals(tenantId)) {
+                buildRunData.merge(runData);
+                runData = buildRunData;
+            }
+        }
+        if (runData != null) {
+            cached.put(testRun.getId(), runData);
+        }
+        if (benchmarkId != null) {
+            TestRunData benchmarkData = cache.get(tenantId, benchmarkId);
+            if (benchmarkData != null) {
+                cached.put(benchmarkId, benchmarkData);
+            }
+        }
 
-        return serverConfiguration;
+        return cached;
     }
 
     static final int RUN_COUNT_MIN = 5;
@@ -13,22 +13,67 @@
 package com.microfocus.lrc.jenkins;
 
 import com.google.gson.Gson;
+import com.microfocus.lrc.core.entity.RunSummary;
 import com.microfocus.lrc.core.entity.TrendingConfiguration;
 import com.microfocus.lrc.core.entity.TrendingDataWrapper;
 import hudson.model.Job;
 import hudson.model.Run;
 import jenkins.model.RunAction2;
+import org.apache.commons.io.IOUtils;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
 
 import javax.servlet.ServletException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 public final class TestRunReportBuildAction implements RunAction2 {
+    static final String REPORT_DATA_FILE = "lrc_trending_report.json.gz";
+    static final String TRENDING_DATA_FILE = "lrc_trending_data.bin.gz";
+    // builds loaded with data kept in build.xml by older versions, migrated by a single background task
+    private static final Queue<TestRunReportBuildAction> MIGRATIONS = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean MIGRATING = new AtomicBoolean();
+
     @SuppressWarnings("java:S2065")
     private transient Run<?, ?> run;
-    private final TrendingDataWrapper trendingDataWrapper;
+    // always loaded with the build, the transactions are in TRENDING_DATA_FILE beside build.xml
+    private RunSummary summary;
+    @SuppressWarnings("java:S2065")
+    private transient volatile SoftReference<TrendingDataWrapper> trendingDataRef;
+    /**
+     * moved to {@link #TRENDING_DATA_FILE}, only kept in build.xml by older versions
+     * or if the file could not be written.
+     */
+    @Deprecated
+    private volatile TrendingDataWrapper trendingDataWrapper;
     private final TrendingConfiguration trendingConfig;
+    // the report data is kept gzip compressed in REPORT_DATA_FILE beside build.xml, loaded on first access
+    @SuppressWarnings("java:S2065")
+    private transient volatile SoftReference<byte[]> reportDataRef;
+    /**
+     * moved to {@link #REPORT_DATA_FILE}, only read from builds saved by older versions
+     * until they are migrated.
+     */
+    @Deprecated
+    private String trendingReportData;
+    /**
+     * replaced by the report data, dropped when builds saved by older versions are migrated.
+     */
+    @Deprecated
     private String trendingReportHTML;
 
     public String getIconFileName() {
@@ -48,9 +93,13 @@ public final class TestRunReportBuildAction implements RunAction2 {
             final TrendingDataWrapper trendingDataWrapper,
             final TrendingConfiguration trendingConfig
     ) {
-        this.trendingDataWrapper = trendingDataWrapper;
         this.trendingConfig = trendingConfig;
         this.run = build;
+        this.summary = RunSummary.of(trendingDataWrapper);
+        this.trendingDataRef = new SoftReference<>(trendingDataWrapper);
+        if (trendingDataWrapper != null && !this.writeTrendingData(trendingDataWrapper)) {
+            this.trendingDataWrapper = trendingDataWrapper;
+        }
     }
 
     /**
@@ -63,14 +112,19 @@ public final class TestRunReportBuildAction implements RunAction2 {
      */
     public void doDynamic(final StaplerRequest req, final StaplerResponse response)
             throws IOException, ServletException {
-        String jsonStr = new Gson().toJson(this.trendingDataWrapper);
+        if (TestRunReportProjectAction.notModified(req, response, TestRunReportProjectAction.eTag(
+                this.run.getParent(), this.run.getNumber(), this.trendingConfig))) {
+            return;
+        }
+
+        String jsonStr = new Gson().toJson(this.getTrendingDataWrapper());
         jsonStr = "<pre>" + jsonStr + "</pre>";
         String trendingConfigStr =
                 this.trendingConfig == null
                         ? "NULL"
                         : "<pre>" + new Gson().toJson(this.trendingConfig) + "</pre>";
 
-        jsonStr = jsonStr + "<br>" + trendingConfigStr + "<br>" + this.trendingReportHTML;
+        jsonStr = jsonStr + "<br>" + trendingConfigStr + "<br><pre>" + this.getTrendingReportData() + "</pre>";
         org.kohsuke.stapler.HttpResponses.literalHtml(jsonStr).generateResponse(req, response, this);
     }
 
@@ -79,8 +133,90 @@ public final class TestRunReportBuildAction implements RunAction2 {
         return run;
     }
 
+    /**
+     * the run level KPIs, available without loading the transactions.
+     */
+    public RunSummary getSummary() {
+        return summary;
+    }
+
+    public boolean hasTrendingData() {
+        return this.summary != null;
+    }
+
+    /**
+     * the trending data with all the transactions, loaded on first access and kept while memory allows.
+     */
+    @SuppressWarnings("deprecation")
     public TrendingDataWrapper getTrendingDataWrapper() {
-        return trendingDataWrapper;
+        TrendingDataWrapper legacy = this.trendingDataWrapper;
+        if (legacy != null) {
+            return legacy;
+        }
+        SoftReference<TrendingDataWrapper> ref = this.trendingDataRef;
+        TrendingDataWrapper wrapper = ref == null ? null : ref.get();
+        if (wrapper != null || this.summary == null) {
+            return wrapper;
+        }
+
+        synchronized (this) {
+            ref = this.trendingDataRef;
+            wrapper = ref == null ? null : ref.get();
+            if (wrapper != null) {
+                return wrapper;
+            }
+            File file = this.getTrendingDataFile();
+            if (file == null || !file.exists()) {
+                return null;
+            }
+            try {
+                wrapper = readTrendingData(file);
+            } catch (IOException e) {
+                LoggerProxy.getSysLogger().log(Level.WARNING, "Failed to read trending data, " + e.getMessage());
+                return null;
+            }
+            Integer benchmarkId = wrapper.getBenchmarkId();
+            if (wrapper.getBenchmark() == null && benchmarkId != null) {
+                wrapper.setBenchmark(TrendingStore.benchmarks(this.run.getParent())
+                        .benchmark(wrapper.getTenantId(), benchmarkId));
+            }
+            this.trendingDataRef = new SoftReference<>(wrapper);
+            return wrapper;
+        }
+    }
+
+    /**
+     * read the {@link #TRENDING_DATA_FILE} of a build, without its shared benchmark.
+     */
+    static TrendingDataWrapper readTrendingData(final File file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+            return TrendingDataWrapper.fromBytes(IOUtils.toByteArray(in));
+        }
+    }
+
+    private boolean writeTrendingData(final TrendingDataWrapper wrapper) {
+        File file = this.getTrendingDataFile();
+        if (file == null) {
+            return false;
+        }
+        try {
+            // the benchmark is saved once per job, not with each build using it
+            Integer benchmarkId = wrapper.getBenchmarkId();
+            boolean sharedBenchmark = wrapper.getBenchmark() != null && benchmarkId != null
+                    && TrendingStore.benchmarks(this.run.getParent())
+                    .saveBenchmark(wrapper.getTenantId(), benchmarkId, wrapper.getBenchmark());
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (OutputStream out = new GZIPOutputStream(bytes)) {
+                out.write(wrapper.toBytes(!sharedBenchmark));
+            }
+            File tmp = new File(file.getParentFile(), TRENDING_DATA_FILE + ".tmp");
+            Files.write(tmp.toPath(), bytes.toByteArray());
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (IOException e) {
+            LoggerProxy.getSysLogger().log(Level.WARNING, "Failed to save trending data, " + e.getMessage());
+            return false;
+        }
     }
 
     public TrendingConfiguration getTrendingConfig() {
@@ -93,34 +229,196 @@ public final class TestRunReportBuildAction implements RunAction2 {
     }
 
     @Override
+    @SuppressWarnings("deprecation")
     public void onLoad(final Run<?, ?> r) {
         this.run = r;
+        TrendingDataWrapper legacyWrapper = this.trendingDataWrapper;
+        if (this.summary == null) {
+            this.summary = RunSummary.of(legacyWrapper);
+        }
+        if (this.trendingReportData != null || this.trendingReportHTML != null || legacyWrapper != null) {
+            scheduleMigration(this);
+        }
+        if (this.hasTrendingData()) {
+            // a job with trending data saved by older versions is found when its builds are loaded
+            LatestTrendingBuild.onLoad(r);
+        }
     }
 
-    public String getTrendingReportHTML() {
-        return trendingReportHTML;
+    private static void scheduleMigration(final TestRunReportBuildAction action) {
+        MIGRATIONS.add(action);
+        if (MIGRATING.compareAndSet(false, true)) {
+            BackgroundTasks.trending().submit(TestRunReportBuildAction::migrateAll);
+        }
     }
 
-    public void setTrendingReportHTML(final String trendingReportHTML) {
-        this.trendingReportHTML = trendingReportHTML;
+    /**
+     * migrate the builds loaded so far, one task for all of them.
+     */
+    private static void migrateAll() {
+        try {
+            TestRunReportBuildAction action;
+            while ((action = MIGRATIONS.poll()) != null) {
+                action.migrate();
+            }
+        } finally {
+            MIGRATING.set(false);
+            // added while the task was ending
+            if (!MIGRATIONS.isEmpty() && MIGRATING.compareAndSet(false, true)) {
+                BackgroundTasks.trending().submit(TestRunReportBuildAction::migrateAll);
+            }
+        }
     }
 
-    public static TestRunReportBuildAction getLastBuildActionHasTrendingData(final Job<?, ?> job) {
-        Run<?, ?> r = (job.getLastBuild());
-        while (true) {
-            if (r == null) {
-                return null;
+    /**
+     * move the report and the trending data kept in build.xml by older versions to their files.
+     * the fields are only cleared once the data is written, the build is saved once.
+     */
+    @SuppressWarnings("deprecation")
+    private void migrate() {
+        boolean changed = false;
+        synchronized (this) {
+            String legacyData = this.trendingReportData;
+            if (legacyData != null && this.writeReportData(legacyData)) {
+                this.trendingReportData = null;
+                changed = true;
+            }
+            if (this.trendingReportHTML != null) {
+                // the page is rendered from the report data
+                this.trendingReportHTML = null;
+                changed = true;
             }
+        }
+        TrendingDataWrapper legacyWrapper = this.trendingDataWrapper;
+        if (legacyWrapper != null && this.writeTrendingData(legacyWrapper)) {
+            this.trendingDataRef = new SoftReference<>(legacyWrapper);
+            this.trendingDataWrapper = null;
+            changed = true;
+        }
+        if (!changed) {
+            return;
+        }
+        try {
+            this.run.save();
+        } catch (IOException e) {
+            LoggerProxy.getSysLogger().log(Level.WARNING, "Failed to save build " + this.run, e);
+        }
+    }
+
+    /**
+     * the trending report data generated when this build was the latest one, see {@link TrendingReport}.
+     */
+    public String getTrendingReportData() {
+        byte[] gzip = this.getTrendingReportDataGzip();
+        if (gzip == null) {
+            return null;
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return new String(IOUtils.toByteArray(in), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LoggerProxy.getSysLogger().log(Level.WARNING, "Failed to read trending report, " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * the trending report data, gzip compressed, as it's cached and stored.
+     */
+    @SuppressWarnings("deprecation")
+    public byte[] getTrendingReportDataGzip() {
+        SoftReference<byte[]> ref = this.reportDataRef;
+        byte[] gzip = ref == null ? null : ref.get();
+        if (gzip != null) {
+            return gzip;
+        }
 
-            TestRunReportBuildAction buildAction = r.getAction(TestRunReportBuildAction.class);
-            if (buildAction != null) {
-                TrendingDataWrapper trendingDataWrapper = buildAction.getTrendingDataWrapper();
-                if (trendingDataWrapper != null) {
-                    return buildAction;
+        synchronized (this) {
+            File file = this.getReportDataFile();
+            if (file == null || !file.exists()) {
+                // not migrated yet
+                String legacyData = this.trendingReportData;
+                if (legacyData == null) {
+                    return null;
                 }
+                try {
+                    gzip = gzip(legacyData);
+                } catch (IOException e) {
+                    LoggerProxy.getSysLogger().log(Level.WARNING, "Failed to read trending report, " + e.getMessage());
+                    return null;
+                }
+                this.reportDataRef = new SoftReference<>(gzip);
+                return gzip;
+            }
+            try {
+                gzip = Files.readAllBytes(file.toPath());
+            } catch (IOException e) {
+                LoggerProxy.getSysLogger().log(Level.WARNING, "Failed to read trending report, " + e.getMessage());
+                return null;
+            }
+            this.reportDataRef = new SoftReference<>(gzip);
+            return gzip;
+        }
+    }
+
+    /**
+     * save the trending report data beside build.xml.
+     *
+     * @return false if it could not be written
+     */
+    @SuppressWarnings("deprecation")
+    public synchronized boolean setTrendingReportData(final String trendingReportData) {
+        if (!this.writeReportData(trendingReportData)) {
+            return false;
+        }
+        // replaced, build.xml is updated when the build is saved
+        this.trendingReportData = null;
+        return true;
+    }
+
+    private synchronized boolean writeReportData(final String reportData) {
+        this.reportDataRef = null;
+        File file = this.getReportDataFile();
+        if (file == null) {
+            return false;
+        }
+        try {
+            if (reportData == null) {
+                Files.deleteIfExists(file.toPath());
+                return true;
             }
 
-            r = r.getPreviousBuild();
+            byte[] gzip = gzip(reportData);
+            File tmp = new File(file.getParentFile(), REPORT_DATA_FILE + ".tmp");
+            Files.write(tmp.toPath(), gzip);
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            this.reportDataRef = new SoftReference<>(gzip);
+            return true;
+        } catch (IOException e) {
+            LoggerProxy.getSysLogger().log(Level.WARNING, "Failed to save trending report, " + e.getMessage());
+            return false;
         }
     }
+
+    private static byte[] gzip(final String data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private File getReportDataFile() {
+        return this.run == null ? null : new File(this.run.getRootDir(), REPORT_DATA_FILE);
+    }
+
+    private File getTrendingDataFile() {
+        return this.run == null ? null : new File(this.run.getRootDir(), TRENDING_DATA_FILE);
+    }
+
+    /**
+     * the action of the latest build with trending data, see {@link LatestTrendingBuild}.
+     */
+    public static TestRunReportBuildAction getLastBuildActionHasTrendingData(final Job<?, ?> job) {
+        return LatestTrendingBuild.get(job);
+    }
 }
@@ -15,31 +15,43 @@ package com.microfocus.lrc.jenkins;
 import com.microfocus.lrc.core.entity.TrendingConfiguration;
 import hudson.model.Action;
 import hudson.model.Job;
-import hudson.model.Run;
+import jenkins.model.Jenkins;
+import org.apache.commons.io.IOUtils;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
 
-import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
 
 public final class TestRunReportProjectAction implements Action {
+    static final String REFRESHING_HEADER = "X-LRC-Refreshing";
+    // job full name -> report generation in progress
+    private static final Map<String, Future<?>> REGENERATING = new ConcurrentHashMap<>();
+    // job full name -> the last generation failed
+    private static final Map<String, Boolean> FAILED = new ConcurrentHashMap<>();
+    // job full name -> number of reports regenerated since the controller started, part of the ETag
+    private static final Map<String, Integer> GENERATIONS = new ConcurrentHashMap<>();
+    private static final long STARTED = System.currentTimeMillis();
 
     private Job<?, ?> project;
-    private TrendingConfiguration trendingConfig;
 
     public String getIconFileName() {
         return "notepad.gif";
     }
 
     public boolean isVisible() {
-        for (Run<?, ?> build : this.getProject().getBuilds()) {
-            TestRunReportBuildAction buildAction = build.getAction(TestRunReportBuildAction.class);
-            if (buildAction != null && buildAction.getTrendingDataWrapper() != null) {
-                return true;
-            }
-        }
-        return false;
+        return LatestTrendingBuild.exists(this.getProject());
     }
 
     public String getDisplayName() {
@@ -50,16 +62,43 @@ public final class TestRunReportProjectAction implements Action {
         return "lrc_report";
     }
 
-    TestRunReportProjectAction(final Job<?, ?> project, final TrendingConfiguration trendingConfig) {
+    TestRunReportProjectAction(final Job<?, ?> project) {
         this.setProject(project);
-        this.setTrendingConfig(trendingConfig);
     }
 
 
+    /**
+     * the report page, scripts and styles are served from the plugin resources
+     * and the report is loaded from {@link #doData}.
+     */
+    public void doDynamic(final StaplerRequest req, final StaplerResponse response) throws IOException {
+        // the page only changes with the plugin version
+        if (notModified(req, response, "page-" + Integer.toHexString(Jenkins.RESOURCE_PATH.hashCode()))) {
+            return;
+        }
+
+        String dataURL = req.getContextPath() + "/" + this.project.getUrl() + this.getUrlName() + "/data";
+        String queryString = req.getQueryString();
+        if (queryString != null) {
+            dataURL += "?" + queryString;
+        }
+
+        // rendered straight to the response, gzip encoded if the client accepts it
+        response.setContentType("text/html;charset=UTF-8");
+        response.setHeader("Vary", "Accept-Encoding");
+        try (Writer writer = response.getCompressedWriter(req)) {
+            if (!TrendingReport.writePage(null, dataURL, writer)) {
+                writer.write("<h1>Failed to generate report.</h1>");
+            }
+        }
+    }
+
+    /**
+     * the trending report data as json, served from its gzip compressed cache.
+     */
     @SuppressWarnings("java:S2629")
-    public void doDynamic(final StaplerRequest req, final StaplerResponse response)
-            throws IOException, ServletException {
-        String htmlContent = null;
+    public void doData(final StaplerRequest req, final StaplerResponse response) throws IOException {
+        byte[] reportData = null;
         String queryString = req.getQueryString();
         boolean forceUpdate = false;
         boolean extraContent = false;
@@ -72,6 +111,8 @@ public final class TestRunReportProjectAction implements Action {
                 extraContent = true;
             }
         }
+        String jobKey = this.project.getFullName();
+        // only the latest build with trending data is loaded, for its trending configuration
         TestRunReportBuildAction buildAction =
                 TestRunReportBuildAction.getLastBuildActionHasTrendingData(this.project);
         if (buildAction == null) {
@@ -83,6 +124,11 @@ public final class TestRunReportProjectAction implements Action {
                     )
             );
         } else {
+            TrendingConfiguration config = buildAction.getTrendingConfig();
+            if (!forceUpdate && !REGENERATING.containsKey(jobKey) && notModified(
+                    req, response, eTag(this.project, buildAction.getRun().getNumber(), config))) {
+                return;
+            }
             LoggerProxy.getSysLogger().log(
                     Level.FINE,
                     String.format(
@@ -90,25 +136,139 @@ public final class TestRunReportProjectAction implements Action {
                             buildAction.getRun().getNumber()
                     )
             );
-            if (forceUpdate || buildAction.getTrendingReportHTML() == null) {
-                htmlContent = TrendingReport.generateReport(
-                        this.project,
-                        this.trendingConfig,
-                        forceUpdate,
-                        extraContent
-                );
-                buildAction.setTrendingReportHTML(htmlContent);
-            } else {
-                htmlContent = buildAction.getTrendingReportHTML();
+            reportData = buildAction.getTrendingReportDataGzip();
+            if (forceUpdate || reportData == null) {
+                this.regenerate(config, forceUpdate, extraContent, reportData == null);
             }
         }
 
+        boolean refreshing = REGENERATING.containsKey(jobKey);
+        if (refreshing) {
+            // the report is about to change, it must not be cached
+            response.setHeader("ETag", null);
+            response.setHeader("Cache-Control", "no-store");
+        }
+        if (reportData == null) {
+            if (refreshing) {
+                // nothing to show yet, the page polls until the report is generated
+                response.setStatus(HttpServletResponse.SC_ACCEPTED);
+                response.setHeader(REFRESHING_HEADER, "true");
+                return;
+            }
+            FAILED.remove(jobKey);
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Failed to generate report.");
+            return;
+        }
 
-        if (htmlContent == null) {
-            htmlContent = "<h1>Failed to generate report.</h1>";
+        // the last good report is served while a new one is generated
+        if (refreshing) {
+            response.setHeader(REFRESHING_HEADER, "true");
         }
+        response.setContentType("application/json;charset=UTF-8");
+        response.setHeader("Vary", "Accept-Encoding");
+        String acceptEncoding = req.getHeader("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            response.setHeader("Content-Encoding", "gzip");
+            response.setContentLength(reportData.length);
+            response.getOutputStream().write(reportData);
+        } else {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(reportData))) {
+                IOUtils.copy(in, response.getOutputStream());
+            }
+        }
+    }
 
-        org.kohsuke.stapler.HttpResponses.literalHtml(htmlContent).generateResponse(req, response, this);
+    /**
+     * generate the report in background, at most one generation per job at a time.
+     * a report which failed to generate is not retried by the polling of the page.
+     */
+    private void regenerate(
+            final TrendingConfiguration config,
+            final boolean forceUpdate,
+            final boolean extraContent,
+            final boolean missing
+    ) {
+        String jobKey = this.project.getFullName();
+        if (missing && !forceUpdate && FAILED.containsKey(jobKey)) {
+            return;
+        }
+
+        Job<?, ?> job = this.project;
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            try {
+                String reportData = TrendingReport.generateReport(job, config, forceUpdate, extraContent);
+                TestRunReportBuildAction buildAction = TestRunReportBuildAction.getLastBuildActionHasTrendingData(job);
+                if (reportData == null || buildAction == null || !buildAction.setTrendingReportData(reportData)) {
+                    FAILED.put(jobKey, Boolean.TRUE);
+                } else {
+                    FAILED.remove(jobKey);
+                    GENERATIONS.merge(jobKey, 1, Integer::sum);
+                }
+            } catch (RuntimeException e) {
+                FAILED.put(jobKey, Boolean.TRUE);
+                LoggerProxy.getSysLogger().log(Level.WARNING, "Failed to generate trending report of " + jobKey, e);
+            } finally {
+                REGENERATING.remove(jobKey);
+            }
+            return null;
+        });
+        if (REGENERATING.putIfAbsent(jobKey, task) == null) {
+            BackgroundTasks.trending().submit(task);
+        }
+    }
+
+    /**
+     * drop the report state of a job, or of the jobs in a folder, which has been deleted or renamed.
+     */
+    static void forget(final String fullName) {
+        String prefix = fullName + "/";
+        for (Map<String, ?> map : Arrays.asList(REGENERATING, FAILED, GENERATIONS)) {
+            map.keySet().removeIf(key -> key.equals(fullName) || key.startsWith(prefix));
+        }
+    }
+
+    /**
+     * version of the reports of a job: the build, the trending configuration and the regenerations of the report.
+     * it's computed without loading any trending data.
+     */
+    static String eTag(final Job<?, ?> job, final int buildNo, final TrendingConfiguration config) {
+        int configHash = config == null ? 0 : Objects.hash(
+                config.getRunsCount(),
+                config.getBenchmark(),
+                config.isBenchmarkPrev(),
+                config.getTrtAvgTholdImpr(),
+                config.getTrtAvgTholdMinorRegr(),
+                config.getTrtAvgTholdMajorRegr(),
+                config.getTrtPctlTholdImpr(),
+                config.getTrtPctlTholdMinorRegr(),
+                config.getTrtPctlTholdMajorRegr()
+        );
+        return String.format(
+                "%d-%x-%x-%d",
+                buildNo,
+                configHash,
+                STARTED,
+                GENERATIONS.getOrDefault(job.getFullName(), 0)
+        );
+    }
+
+    /**
+     * set the validators of the response, and answer 304 if the client has the same version.
+     *
+     * @return true if the response is complete
+     */
+    static boolean notModified(final StaplerRequest req, final StaplerResponse response, final String version) {
+        // weak, the same version is served gzip encoded or not
+        String eTag = "\"lrc-" + version + "\"";
+        response.setHeader("ETag", "W/" + eTag);
+        // cached by the browser, revalidated on each use
+        response.setHeader("Cache-Control", "private, no-cache");
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch != null && (ifNoneMatch.contains(eTag) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+        return false;
     }
 
     @SuppressWarnings("java:S1452")
@@ -119,8 +279,4 @@ public final class TestRunReportProjectAction implements Action {
     public void setProject(final Job<?, ?> project) {
         this.project = project;
     }
-
-    private void setTrendingConfig(final TrendingConfiguration trendingConfig) {
-        this.trendingConfig = trendingConfig;
-    }
 }
@@ -0,0 +1,41 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.jenkins;
+
+import com.microfocus.lrc.core.entity.LoadTestRun;
+import com.microfocus.lrc.core.entity.TestRunOptions;
+import hudson.model.InvisibleAction;
+
+/**
+ * The test run of the build and the options it was started with, recorded by {@link TestRunBuilder}
+ * for {@link TestRunPublisher}, which could run on another node.
+ * <p>
+ * Persisted with the build, the reports and transactions of the run are not kept.
+ */
+public final class TestRunResultAction extends InvisibleAction {
+    private final TestRunOptions testOptions;
+    private final LoadTestRun testRun;
+
+    TestRunResultAction(final TestRunOptions testOptions, final LoadTestRun testRun) {
+        this.testOptions = testOptions;
+        this.testRun = testRun;
+    }
+
+    public TestRunOptions getTestOptions() {
+        return testOptions;
+    }
+
+    public LoadTestRun getTestRun() {
+        return testRun;
+    }
+}
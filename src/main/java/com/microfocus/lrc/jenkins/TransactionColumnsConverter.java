@@ -0,0 +1,69 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.jenkins;
+
+import com.microfocus.lrc.core.entity.TransactionColumns;
+import com.microfocus.lrc.core.entity.TrendingDataWrapper;
+import com.thoughtworks.xstream.converters.ConversionException;
+import com.thoughtworks.xstream.converters.Converter;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.Run;
+
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * Writes {@link TransactionColumns} into build.xml as one base64 encoded binary element
+ * instead of an element per value.
+ */
+public final class TransactionColumnsConverter implements Converter {
+
+    @Initializer(before = InitMilestone.JOB_LOADED)
+    public static void register() {
+        Run.XSTREAM2.registerConverter(new TransactionColumnsConverter());
+        // transactions saved by older versions, as an inner class, refer to their wrapper
+        Run.XSTREAM2.aliasField("outer-class", TrendingDataWrapper.TransactionData.class, "outerClass");
+    }
+
+    @Override
+    public boolean canConvert(final Class type) {
+        return type == TransactionColumns.class;
+    }
+
+    @Override
+    public void marshal(
+            final Object source,
+            final HierarchicalStreamWriter writer,
+            final MarshallingContext context
+    ) {
+        try {
+            writer.setValue(Base64.getEncoder().encodeToString(((TransactionColumns) source).toBytes()));
+        } catch (IOException e) {
+            throw new ConversionException("Failed to encode transactions", e);
+        }
+    }
+
+    @Override
+    public Object unmarshal(final HierarchicalStreamReader reader, final UnmarshallingContext context) {
+        try {
+            return TransactionColumns.fromBytes(Base64.getDecoder().decode(reader.getValue().trim()));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ConversionException("Failed to decode transactions", e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.microfocus.lrc.jenkins;
+
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.listeners.ItemListener;
+
+/**
+ * Drops the trending state cached for a job once the job is deleted, renamed or moved,
+ * it's keyed by the directory or the full name of the job.
+ */
+@Extension
+public final class TrendingItemListener extends ItemListener {
+
+    @Override
+    public void onDeleted(final Item item) {
+        TrendingStore.evict(item.getRootDir());
+        LatestTrendingBuild.evict(item.getRootDir());
+        TestRunReportProjectAction.forget(item.getFullName());
+    }
+
+    @Override
+    public void onLocationChanged(final Item item, final String oldFullName, final String newFullName) {
+        TrendingStore.evictMoved();
+        LatestTrendingBuild.evictMoved();
+        TestRunReportProjectAction.forget(oldFullName);
+    }
+}
@@ -13,27 +13,38 @@
 package com.microfocus.lrc.jenkins
 
 import com.google.gson.Gson
-import com.google.gson.JsonArray
+import com.google.gson.JsonElement
 import com.google.gson.JsonObject
 import com.microfocus.lrc.core.Constants
 import com.microfocus.lrc.core.HTMLTemplate
+import com.microfocus.lrc.core.TrendingCalculator
+import com.microfocus.lrc.core.entity.RunSummary
 import com.microfocus.lrc.core.entity.TrendingConfiguration
 import com.microfocus.lrc.core.entity.TrendingDataWrapper
+import com.microfocus.lrc.core.entity.TrendingRun
+import com.microfocus.lrc.core.entity.TrendingState
+import com.microfocus.lrc.core.entity.TrendingUpdate
 import hudson.model.Job
-import hudson.model.Run
 import jenkins.model.Jenkins
 import org.apache.commons.io.IOUtils
+import org.kohsuke.stapler.Stapler
 import java.io.IOException
-import java.math.BigDecimal
-import java.math.RoundingMode
+import java.io.Writer
 import java.nio.charset.StandardCharsets
 import java.text.SimpleDateFormat
-import java.util.function.BiPredicate
+import java.util.Date
+import java.util.concurrent.ConcurrentHashMap
 import java.util.logging.Level
-import java.util.stream.Collectors
 
 class TrendingReport {
     companion object {
+        private const val TEMPLATE = "trending_report/run_report.twig"
+        private val assets = ConcurrentHashMap<String, String>()
+
+        /**
+         * the trending report data (model, thresholds and test info) as compact json,
+         * served to the report page by [TestRunReportProjectAction].
+         */
         @JvmStatic
         @SuppressWarnings("kotlin:S3776")
         fun generateReport(
@@ -55,283 +66,281 @@ class TrendingReport {
             //#endregion
             LoggerProxy.sysLogger.log(Level.INFO, "Trending report generation starts for project \"${project.name}\"")
 
-            var latestBuild: Run<*, *>? = null
-
             //#region get the latest build has trending data
-            val latestBuilds: List<Run<*, *>> =
-                this.findValidBuilds(project.lastBuild, 1) { build, _ ->
-                    this.isHavingTrendingData(build)
+            val store = TrendingStore.of(project)
+            var latestEntry: TrendingStore.Entry? = store.latest()
+            var latestBuildAction: TestRunReportBuildAction? = null
+            while (latestEntry != null) {
+                @SuppressWarnings("kotlin:S1874")
+                latestBuildAction = project.getBuildByNumber(latestEntry.buildNo)
+                    ?.getAction(TestRunReportBuildAction::class.java)
+                if (latestBuildAction != null) {
+                    break
                 }
-            if (latestBuilds.size == 1) {
-                latestBuild = latestBuilds[0]
+                // the build is gone without being removed from the store
+                store.delete(latestEntry.buildNo)
+                latestEntry = store.latest()
             }
 
-            if (latestBuild == null) {
+            if (latestEntry == null || latestBuildAction == null) {
                 LoggerProxy.sysLogger.log(Level.INFO, "No valid build found, failed to generate trending report.")
                 return null
             }
 
-            @SuppressWarnings("kotlin:S1874")
-            val latestBuildAction: TestRunReportBuildAction? =
-                latestBuild.getAction(TestRunReportBuildAction::class.java)
-            if (latestBuildAction == null) {
-                LoggerProxy.sysLogger.log(
-                    Level.SEVERE,
-                    "No buildAction attached on the latest build, failed to generate trending report."
-                )
-                return null
-            }
-
-            LoggerProxy.sysLogger.log(Level.FINE, "Latest valid build found: build#" + latestBuild.getNumber())
+            LoggerProxy.sysLogger.log(Level.FINE, "Latest valid build found: build#" + latestEntry.buildNo)
             //#endregion
             val generatorLogs = StringBuilder()
 
             //#region check if report has been generated for the latestBuild
             // and if trendingConfig is changed since last generating.
-            val cachedHTML = this.findCachedHTML(latestBuildAction, trendingConfig, forceUpdate)
-            if (cachedHTML != null) {
-                return cachedHTML
+            val cachedReport = this.findCachedReport(latestBuildAction, trendingConfig, forceUpdate)
+            if (cachedReport != null) {
+                return cachedReport
             }
             //#endregion
 
 
             //this list will at least have ONE item, the "latestBuild" itself
-            val latestBuildsHasTrendingDataAndSameTestId: List<Run<*, *>> =
-                this.findValidBuilds(
-                    latestBuild,
-                    trendingConfig.runsCount
-                ) { build: Run<*, *>?, baseBuild: Run<*, *>? ->
-                    this.isHavingTrendingDataAndSameTestId(
-                        build,
-                        baseBuild
-                    )
-                }
+            val entries: List<TrendingStore.Entry> = store.sameTest(latestEntry, trendingConfig.runsCount)
 
             LoggerProxy.sysLogger.log(
                 Level.FINE,
-                buildString {
-                    append("Totally ${latestBuildsHasTrendingDataAndSameTestId.size} builds found: ")
-                    append(latestBuildsHasTrendingDataAndSameTestId.stream().map { build: Run<*, *> ->
-                        "#${build.getNumber()}"
-                    }.reduce("") { a: String, b: String -> "$a, $b" })
-                }
+                "Totally ${entries.size} builds found: " + entries.joinToString(", ") { "#${it.buildNo}" }
             )
 
-            var latestBenchmark: TrendingDataWrapper.TrendingData? = latestBuildAction.trendingDataWrapper.benchmark
+            // the transactions of the latest build are read from the store, the build action only loads its summary
+            val latestWrapper = store.read(latestEntry)
+            val summary: RunSummary = latestBuildAction.summary ?: RunSummary.of(latestWrapper)
+            var latestBenchmark: TrendingDataWrapper.TrendingData? = latestWrapper.benchmark
             if (latestBenchmark == null) {
                 LoggerProxy.sysLogger.log(
                     Level.INFO, "Latest benchmark is null, choose the run itself as benchmark."
                 )
-                latestBenchmark = latestBuildAction.trendingDataWrapper.trendingData!!
+                latestBenchmark = latestWrapper.trendingData!!
             }
             val benchmark: TrendingDataWrapper.TrendingData = latestBenchmark
             LoggerProxy.sysLogger.log(
                 Level.INFO, "Benchmark is: run #${benchmark.runId}"
             )
-            val dateFormat = SimpleDateFormat("yyyy.MM.dd HH:mm:ss")
-
-            //{buildId: number, data: TrendingDataWrapper}[]
-
-            val trendingDataWrapperList: List<JsonObject> =
-                latestBuildsHasTrendingDataAndSameTestId.stream().map { b: Run<*, *> ->
-                    val tempTrd = JsonObject()
-                    @SuppressWarnings("kotlin:S1874")
-                    val trendingDataWrapper: TrendingDataWrapper =
-                        b.getAction(TestRunReportBuildAction::class.java).trendingDataWrapper
-                    tempTrd.addProperty("data", Gson().toJson(trendingDataWrapper))
-                    tempTrd.addProperty("buildId", b.getNumber())
-                    tempTrd.addProperty("buildDate", dateFormat.format(b.time))
-                    tempTrd
-                }.collect(Collectors.toList())
-
-            val overviews = JsonArray()
-            trendingDataWrapperList.stream().map { jsonObject: JsonObject ->
-                getOverviewFromTrendingData(
-                    jsonObject
+            // each build's trending data is read once from the store, builds are not loaded
+            val tenantId = summary.tenantId
+            val benchmarkId = summary.benchmarkId
+            val readEntries = { list: List<TrendingStore.Entry> -> readRuns(store, list, tenantId) }
+
+            val model = synchronized(store) {
+                // the model of the previous report is updated with the new builds and the dropped ones,
+                // it's recalculated only if the thresholds, the benchmark or the history changed.
+                val state = store.loadState()
+                val known = state?.buildNos?.toHashSet() ?: emptySet<Int>()
+                val newRuns = readEntries(entries.filter { !known.contains(it.buildNo) })
+                val newBuildNos = newRuns.mapTo(HashSet()) { it.buildNo }
+                val window = entries.map { it.buildNo }.filter { known.contains(it) || newBuildNos.contains(it) }
+                val updated = state != null && TrendingCalculator.update(
+                    state,
+                    window,
+                    newRuns,
+                    benchmark,
+                    benchmarkId,
+                    trendingConfig,
+                    { buildNo -> store.entry(buildNo)?.let { store.read(it).trendingData } },
+                    generatorLogs
                 )
-            }.collect(Collectors.toList()).forEach { overview: JsonObject ->
-                overviews.add(overview)
+                val current = if (updated) {
+                    LoggerProxy.sysLogger.log(Level.FINE, "Trending model updated with ${newRuns.size} new builds")
+                    state!!
+                } else {
+                    LoggerProxy.sysLogger.log(Level.FINE, "Trending model recalculated")
+                    TrendingCalculator.calculateState(readEntries(entries), benchmark, benchmarkId, trendingConfig, generatorLogs)
+                }
+                store.saveState(current)
+                Gson().toJsonTree(current.model)
             }
 
-            val trts = JsonArray()
-            val transactionsGroup: Map<Pair<String, String>, List<JsonObject>> =
-                trendingDataWrapperList.stream().flatMap { t: JsonObject ->
-                    (Gson().fromJson(
-                        t.get("data").asString,
-                        TrendingDataWrapper::class.java
-                    )).trendingData.transactions.stream()
-                        .map { trans ->
-                            val tempTrans = JsonObject()
-                            val trendingDataWrapper: TrendingDataWrapper =
-                                Gson().fromJson(t.get("data").asString, TrendingDataWrapper::class.java)
-                            tempTrans.addProperty("data", Gson().toJson(trans))
-                            tempTrans.addProperty("buildId", t.get("buildId").asInt)
-                            tempTrans.addProperty("runId", trendingDataWrapper.trendingData.runId)
-                            tempTrans.addProperty("percentile", trendingDataWrapper.trendingData.percentile)
-                            tempTrans
-                        }
-                }.collect(
-                    Collectors.groupingBy { transJSON ->
-                        val trans: TrendingDataWrapper.TransactionData =
-                            Gson().fromJson(
-                                transJSON.get("data").asString,
-                                TrendingDataWrapper.TransactionData::class.java
-                            )
-                        return@groupingBy Pair(trans.name, trans.script)
-                    }
-                )
+            return this.toReport(model, trendingConfig, summary, generatorLogs.toString(), extraContent)
+        }
 
-            transactionsGroup.forEach { (transScriptName: Pair<String?, String?>, transJSONList: List<JsonObject>) ->
-                generatorLogs.append(
-                    String.format(
-                        "processing transaction group: %1\$s - %2\$s%n",
-                        transScriptName.first,
-                        transScriptName.second
-                    )
-                )
-                val trtGroup = JsonObject()
-                trtGroup.addProperty("transactionName", transScriptName.first)
-                trtGroup.addProperty("scriptName", transScriptName.second)
-                trtGroup.add("trtDataArr", JsonArray())
-                //transJSONList: {buildId, runId, percentile, data: TransactionData}[]
-                transJSONList.stream()
-                    .map { transJSON: JsonObject ->
-                        generatorLogs.append(
-                            java.lang.String.format(
-                                "\t\tprocessing test run: %d%n",
-                                transJSON.get("runId").asInt
-                            )
-                        )
-                        //here is the default benchmark transaction
-                        var benchmarkTrans: TrendingDataWrapper.TransactionData? = benchmark.transactions.stream()
-                            .filter { t -> (transScriptName.first == t.name) && (transScriptName.second == t.script) }
-                            .findAny().orElse(null)
-                        var benchmarkRunId: Int = benchmark.runId
-                        if (latestBuildAction.trendingDataWrapper.benchmarkId == null) {
-                            generatorLogs.append("\t\t\t\tbenchmark is set to 'Previous'\n")
-                            //benchmarkId == null means that the "Benchmark" is set to "Previous"
-                            //so the benchmark for each transactionData should be the "trending data of previous build"
-                            val prevData: Pair<Int, TrendingDataWrapper.TransactionData?>? =
-                                this.getPreviousRunTrans(
-                                    transJSONList,
-                                    transJSON.get("runId").asInt
-                                )
-                            if ((prevData != null) && (prevData.second != null)) {
-                                generatorLogs.append(
-                                    "\t\t\t\tbenchmark found: testrun#${prevData.first}",
-                                )
-                                benchmarkTrans = prevData.second
-                                benchmarkRunId = prevData.first
-                            } else {
-                                generatorLogs.append("\t\t\t\tbenchmark not found: use the run itself.\n")
-                                benchmarkTrans = Gson().fromJson(
-                                    transJSON.get("data").asString,
-                                    TrendingDataWrapper.TransactionData::class.java
-                                )
-                                benchmarkRunId = transJSON.get("runId").asInt
-                            }
-                        } else {
-                            generatorLogs.append(
-                                ("\t\t\t\tbenchmark is " + latestBuildAction.trendingDataWrapper
-                                    .benchmarkId) + "\n"
-                            )
-                            if (benchmarkTrans == null) {
-                                generatorLogs.append(
-                                    String.format(
-                                        "\t\t\t\tcannot find benchmark for %1\$s - %2\$s%n",
-                                        transScriptName.first,
-                                        transScriptName.second
-                                    )
-                                )
-                            }
-                        }
-                        val trt = calculateTRT(
-                            transJSON.get("runId").asInt,
-                            benchmarkRunId,
-                            transJSON.get("buildId").asInt,
-                            transJSON.get("percentile").asInt,
-                            Gson().fromJson(
-                                transJSON.get("data").asString,
-                                TrendingDataWrapper.TransactionData::class.java
-                            ),
-                            benchmarkTrans,
-                            trendingConfig
-                        )
-                        trt
-                    }.forEach { trtJSON ->
-                        trtGroup.getAsJsonArray("trtDataArr").add(trtJSON)
+        /**
+         * what the agent fetching the run of build [buildNo] needs to add its column to the saved model,
+         * see [TrendingCalculator.addLatest].
+         * null if the saved model is not the one of the previous build of the same test, or the thresholds
+         * or the benchmark changed, the report is then generated on the controller by [generateReport].
+         */
+        @JvmStatic
+        fun prepareUpdate(
+            store: TrendingStore,
+            buildNo: Int,
+            buildTime: Long,
+            testId: Int,
+            tenantId: String,
+            trendingConfig: TrendingConfiguration
+        ): TrendingUpdate? {
+            synchronized(store) {
+                val state = store.loadState() ?: return null
+                val latest = store.latest() ?: return null
+                if (latest.buildNo >= buildNo || state.buildNos.firstOrNull() != latest.buildNo ||
+                    latest.testId != testId || latest.tenantHash != tenantId.hashCode() ||
+                    state.configKey != TrendingCalculator.configKey(trendingConfig) ||
+                    state.benchmarkId != trendingConfig.benchmark
+                ) {
+                    return null
+                }
+                // the columns kept with the new build, all of them must be in the model already
+                val known = state.buildNos.toHashSet()
+                val kept = store.sameTest(latest, trendingConfig.runsCount - 1).map { it.buildNo }
+                if (!known.containsAll(kept)) {
+                    return null
+                }
+                val previousRuns = HashMap<Int, TrendingDataWrapper.TrendingData>()
+                if (trendingConfig.benchmark == null) {
+                    // the new build and the ones left after dropping a column are compared to the previous runs
+                    for (number in kept) {
+                        store.entry(number)?.let { store.read(it).trendingData }?.let { previousRuns[number] = it }
                     }
-                trts.add(trtGroup)
+                }
+                // a copy is sent, the saved model is updated in place by the report generation
+                val copy = Gson().fromJson(Gson().toJson(state), TrendingState::class.java)
+                return TrendingUpdate(
+                    copy,
+                    ArrayList(state.buildNos),
+                    listOf(buildNo) + kept,
+                    buildNo,
+                    buildDate(buildTime),
+                    previousRuns
+                )
             }
+        }
 
-            val data = JsonObject()
-            data.addProperty("baseURL", Jenkins.getInstanceOrNull()?.rootUrl + "plugin/loadrunner-cloud/")
-
-            data.addProperty("trtAvgTholdImpr", trendingConfig.trtAvgTholdImpr)
-            data.addProperty("trtAvgTholdMinorRegr", trendingConfig.trtAvgTholdMinorRegr)
-            data.addProperty("trtAvgTholdMajorRegr", trendingConfig.trtAvgTholdMajorRegr)
-            data.addProperty("trtPctlTholdImpr", trendingConfig.trtPctlTholdImpr)
-            data.addProperty("trtPctlTholdMinorRegr", trendingConfig.trtPctlTholdMinorRegr)
-            data.addProperty("trtPctlTholdMajorRegr", trendingConfig.trtPctlTholdMajorRegr)
+        /**
+         * save the model computed by the agent from [update] and return the report data,
+         * null if the store changed meanwhile, the report is then generated by [generateReport].
+         */
+        @JvmStatic
+        fun saveComputed(
+            store: TrendingStore,
+            update: TrendingUpdate,
+            computed: TrendingState,
+            trendingConfig: TrendingConfiguration,
+            summary: RunSummary,
+            generatorLogs: String
+        ): String? {
+            val model = synchronized(store) {
+                if (store.latest()?.buildNo != update.buildNo || store.loadState()?.buildNos != update.basedOn) {
+                    return null
+                }
+                store.saveState(computed)
+                Gson().toJsonTree(computed.model)
+            }
+            LoggerProxy.sysLogger.log(Level.FINE, "Trending model of build #${update.buildNo} computed by the agent")
+            return this.toReport(model, trendingConfig, summary, generatorLogs, false)
+        }
 
-            data.addProperty("pageTitle", "LoadRunner Cloud Test Runs Trending Report")
+        private fun buildDate(buildTime: Long): String {
+            return SimpleDateFormat("yyyy.MM.dd HH:mm:ss").format(Date(buildTime))
+        }
 
-            data.add("data", JsonObject())
-            data.get("data").asJsonObject.add("metrics", overviews)
-            data.get("data").asJsonObject.add("trt", trts)
-            data.addProperty("testId", latestBuildAction.trendingDataWrapper.trendingData.testId)
-            data.addProperty("testName", latestBuildAction.trendingDataWrapper.trendingData.testName)
+        private fun readRuns(
+            store: TrendingStore,
+            entries: List<TrendingStore.Entry>,
+            tenantId: String
+        ): List<TrendingRun> {
+            return entries.mapNotNull { entry ->
+                val trendingDataWrapper = store.read(entry)
+                if (trendingDataWrapper.tenantId != tenantId) {
+                    null
+                } else {
+                    TrendingRun(entry.buildNo, buildDate(entry.buildTime), trendingDataWrapper.trendingData)
+                }
+            }
+        }
 
-            if (latestBuildAction.trendingDataWrapper.benchmarkId == null) {
-                data.addProperty(Constants.BENCHMARK, 0)
+        private fun toReport(
+            model: JsonElement,
+            trendingConfig: TrendingConfiguration,
+            summary: RunSummary,
+            generatorLogs: String,
+            extraContent: Boolean
+        ): String {
+            val report = JsonObject()
+            report.addProperty("trtAvgTholdImpr", trendingConfig.trtAvgTholdImpr)
+            report.addProperty("trtAvgTholdMinorRegr", trendingConfig.trtAvgTholdMinorRegr)
+            report.addProperty("trtAvgTholdMajorRegr", trendingConfig.trtAvgTholdMajorRegr)
+            report.addProperty("trtPctlTholdImpr", trendingConfig.trtPctlTholdImpr)
+            report.addProperty("trtPctlTholdMinorRegr", trendingConfig.trtPctlTholdMinorRegr)
+            report.addProperty("trtPctlTholdMajorRegr", trendingConfig.trtPctlTholdMajorRegr)
+
+            report.add("data", model)
+            report.addProperty("testId", summary.testId)
+            report.addProperty("testName", summary.testName)
+
+            val benchmarkId = summary.benchmarkId
+            if (benchmarkId == null) {
+                report.addProperty(Constants.BENCHMARK, 0)
             } else {
-                data.addProperty(Constants.BENCHMARK, latestBuildAction.trendingDataWrapper.benchmarkId)
+                report.addProperty(Constants.BENCHMARK, benchmarkId)
             }
 
-            data.addProperty("generatorLogs", generatorLogs.toString())
-            data.addProperty("extraContent", extraContent)
-            val slotContent: Map<String, String>
-            val htmlTemplate: String
+            report.addProperty("generatorLogs", generatorLogs)
+            report.addProperty("extraContent", extraContent)
+
+            return report.toString()
+        }
+
+        /**
+         * render the trending report page to [writer], the page is not kept in memory.
+         *
+         * @param report the report data, it's inlined with the scripts and styles for a standalone page,
+         * null for the page shown in Jenkins, which loads the assets from the plugin resources
+         * and the report from [dataURL].
+         * @return false if the resources of the page can't be loaded, nothing is written then.
+         */
+        @JvmStatic
+        @Throws(IOException::class)
+        fun writePage(report: String?, dataURL: String?, writer: Writer): Boolean {
+            val data = JsonObject()
+            data.addProperty("pageTitle", "LoadRunner Cloud Test Runs Trending Report")
+            // relative to the server when rendered for a request, so the context path of Jenkins is kept
+            val root = Stapler.getCurrentRequest()?.contextPath
+                ?: Jenkins.getInstanceOrNull()?.rootUrl.orEmpty().removeSuffix("/")
+            data.addProperty("resURL", root + Jenkins.RESOURCE_PATH)
+            data.addProperty("dataURL", dataURL.orEmpty())
+            data.addProperty("standalone", report != null)
             try {
-                slotContent = mapOf(
-                    "pureCss" to IOUtils.toString(
-                        TestRunBuilder::class.java.classLoader
-                            .getResourceAsStream("trending_report/pure.min.css"), StandardCharsets.UTF_8
-                    ),
-                    "lodashjs" to IOUtils.toString(
-                        TestRunBuilder::class.java.classLoader
-                            .getResourceAsStream("trending_report/lodash.min.js"), StandardCharsets.UTF_8
-                    ),
-                    "momentjs" to IOUtils.toString(
-                        TestRunBuilder::class.java.classLoader
-                            .getResourceAsStream("trending_report/moment.min.js"), StandardCharsets.UTF_8
-                    )
-                )
-                slotContent.forEach(data::addProperty)
-                htmlTemplate = IOUtils.toString(
-                    TestRunBuilder::class.java.classLoader.getResourceAsStream("trending_report/run_report.twig"),
-                    StandardCharsets.UTF_8
-                )
+                if (report != null) {
+                    // "</" is escaped so the inlined json can't close the script tag
+                    data.addProperty("report", report.replace("</", "<\\/"))
+                    data.addProperty("pureCss", this.readResource("pure.min.css"))
+                    data.addProperty("lodashjs", this.readResource("lodash.min.js"))
+                    data.addProperty("momentjs", this.readResource("moment.min.js"))
+                }
             } catch (e: IOException) {
                 LoggerProxy.sysLogger
                     .log(Level.SEVERE, "Failed to load resource files for trending report, " + e.message)
-                return null
+                return false
             }
 
-            return try {
-                HTMLTemplate.generateByPebble(htmlTemplate, data)
-            } catch (e: IOException) {
-                LoggerProxy.sysLogger.log(Level.SEVERE, "Failed to generate html, " + e.message)
-                "failed to generate"
+            HTMLTemplate.generateByPebble(TEMPLATE, data, writer)
+            return true
+        }
+
+        // static assets of the report page, served by Jenkins from the plugin's webapp directory,
+        // read once for the standalone pages
+        private fun readResource(name: String): String {
+            this.assets[name]?.let { return it }
+            val url = Jenkins.getInstanceOrNull()?.pluginManager?.getPlugin("loadrunner-cloud")?.baseResourceURL
+                ?: throw IOException("plugin resources not found")
+            val content = url.toURI().resolve("trending_report/$name").toURL().openStream().use {
+                IOUtils.toString(it, StandardCharsets.UTF_8)
             }
+            this.assets[name] = content
+            return content
         }
 
-        private fun findCachedHTML(
+        private fun findCachedReport(
             latestBuildAction: TestRunReportBuildAction,
             trendingConfig: TrendingConfiguration,
             forceUpdate: Boolean
         ): String? {
-            if (latestBuildAction.trendingReportHTML == null) {
+            if (latestBuildAction.trendingReportData == null) {
                 LoggerProxy.sysLogger.log(Level.INFO, "Cached trending report not found, generating.")
                 return null
             }
@@ -342,7 +351,7 @@ class TrendingReport {
                     Level.INFO,
                     "Cached trending report found and trending config is not changed"
                 )
-                latestBuildAction.trendingReportHTML
+                latestBuildAction.trendingReportData
             } else {
                 LoggerProxy.sysLogger.log(
                     Level.INFO,
@@ -352,29 +361,6 @@ class TrendingReport {
             }
         }
 
-        private fun findValidBuilds(
-            start: Run<*, *>?,
-            buildCount: Int,
-            isValid: BiPredicate<Run<*, *>?, Run<*, *>?>
-        ): List<Run<*, *>> {
-            val list: MutableList<Run<*, *>> = ArrayList()
-            var lastBuild = start
-            while (list.size < buildCount && lastBuild != null) {
-                if (isValid.test(lastBuild, start)) {
-                    list.add(lastBuild)
-                }
-                lastBuild = lastBuild.previousBuild
-            }
-            return list
-        }
-
-        private fun isHavingTrendingData(build: Run<*, *>?): Boolean {
-            @SuppressWarnings("kotlin:S1874")
-            val trendingAction: TestRunReportBuildAction? = build?.getAction(TestRunReportBuildAction::class.java)
-            val size = trendingAction?.trendingDataWrapper?.trendingData?.transactions?.size ?: 0
-            return size > 0
-        }
-
         private fun isSameTrendingConfig(configA: TrendingConfiguration, configB: TrendingConfiguration): Boolean {
             return configA.runsCount.equals(configB.runsCount) &&
                     configA.trtAvgTholdImpr.equals(configB.trtAvgTholdImpr) &&
@@ -384,183 +370,5 @@ class TrendingReport {
                     configA.trtPctlTholdMajorRegr.equals(configB.trtPctlTholdMajorRegr) &&
                     configA.trtPctlTholdMinorRegr.equals(configB.trtPctlTholdMinorRegr)
         }
-
-        private fun isHavingTrendingDataAndSameTestId(build: Run<*, *>?, baseBuild: Run<*, *>?): Boolean {
-            if (!this.isHavingTrendingData(build)) {
-                return false
-            }
-            @SuppressWarnings("kotlin:S1874")
-            val trendingAction = build?.getAction(TestRunReportBuildAction::class.java)
-                ?: return false
-
-            @SuppressWarnings("kotlin:S1874")
-            val baseTrendingAction: TestRunReportBuildAction =
-                baseBuild?.getAction(TestRunReportBuildAction::class.java)
-                    ?: return false
-            val testId: Int = trendingAction.trendingDataWrapper.trendingData.testId
-            val baseTestId: Int = baseTrendingAction.trendingDataWrapper.trendingData.testId
-            val tenantId: String = trendingAction.trendingDataWrapper.tenantId
-            val baseTenantId: String = baseTrendingAction.trendingDataWrapper.tenantId
-
-            return (testId == baseTestId) && (tenantId == baseTenantId)
-        }
-
-        private fun getOverviewFromTrendingData(jsonObject: JsonObject): JsonObject {
-            val trendingData: TrendingDataWrapper.TrendingData =
-                Gson().fromJson(jsonObject.get("data").asString, TrendingDataWrapper::class.java).trendingData
-            val overview = JsonObject()
-            overview.addProperty("runId", trendingData.runId)
-            overview.addProperty("buildNo", jsonObject.get("buildId").asInt)
-            this.putNumberSafely(overview, "avgHits", trendingData.avgHits)
-            this.putNumberSafely(
-                overview,
-                "avgThroughput",
-                trendingData.avgThroughput
-            )
-            this.putNumberSafely(
-                overview,
-                "errorsPerSec",
-                trendingData.errorsPerSec
-            )
-            this.putNumberSafely(overview, "duration", trendingData.duration)
-            this.putNumberSafely(
-                overview,
-                "initDuration",
-                trendingData.initDuration.toDouble()
-            )
-            overview.addProperty("vusers", trendingData.vusers)
-            this.putNumberSafely(
-                overview,
-                "tps",
-                (trendingData.totalTxPassed + trendingData.totalTxFailed).toDouble() / trendingData.duration
-            )
-            overview.addProperty("totalTxPassed", trendingData.totalTxPassed)
-            overview.addProperty("totalTxFailed", trendingData.totalTxFailed)
-
-            overview.addProperty("status", trendingData.status)
-            val startTime = jsonObject.get("buildDate").asString
-            overview.addProperty("date", startTime)
-            return overview
-        }
-
-        private fun putNumberSafely(json: JsonObject, key: String, value: Double) {
-            var safeVal = value
-            if (java.lang.Double.isInfinite(safeVal) || java.lang.Double.isNaN(safeVal)) {
-                safeVal = 0.0
-            }
-            json.addProperty(key, safeVal)
-        }
-
-        private fun getPreviousRunTrans( //JSONObject: {buildId, runId, percentile, data: TransactionData}
-            transJSONList: List<JsonObject>,
-            currentRunId: Int
-        ): Pair<Int, TrendingDataWrapper.TransactionData?>? {
-            //the "previous" is the max run id smaller than the current one.
-            val prevRunId = transJSONList.stream()
-                .map { trans: JsonObject -> trans.get("runId").asInt }
-                .filter { x -> x < currentRunId }
-                .max(Comparator.naturalOrder())
-                .orElse(null) ?: return null
-
-            val prevTrans: JsonObject = transJSONList.stream()
-                .filter { x: JsonObject -> x.get("runId").asInt == prevRunId }
-                .findFirst()
-                .get()
-            val prevTransactionData: TrendingDataWrapper.TransactionData = Gson().fromJson(
-                prevTrans.get("data").asString, TrendingDataWrapper.TransactionData::class.java
-            )
-            return Pair(prevRunId, prevTransactionData)
-        }
-
-        private fun calculateTRT(
-            runId: Int,
-            benchmarkRunId: Int,
-            buildId: Int,
-            percentile: Int,
-            transaction: TrendingDataWrapper.TransactionData,
-            benchmarkTrans: TrendingDataWrapper.TransactionData?,
-            trendingConfig: TrendingConfiguration
-        ): JsonObject {
-            var benchmarkTx = benchmarkTrans
-            val trt = JsonObject()
-            if (benchmarkTx == null) {
-                //use itself as benchmark if no match (same script/transaction) benchmark is found.
-                benchmarkTx = transaction
-            }
-            trt.addProperty("runId", runId)
-            trt.addProperty("buildNo", buildId)
-            trt.addProperty("percentile", percentile)
-            putNumberSafely(trt, "avg", transaction.avg)
-            var avgD = BigDecimal(trt.get("avg").asDouble)
-            avgD = avgD.setScale(3, RoundingMode.HALF_UP)
-            trt.addProperty("avg", avgD)
-            putNumberSafely(trt, "ninetieth", transaction.nintieth)
-            var ninetiethD = BigDecimal(trt.get("ninetieth").asDouble)
-            ninetiethD = ninetiethD.setScale(3, RoundingMode.HALF_UP)
-            trt.addProperty("ninetieth", ninetiethD)
-            trt.addProperty("avgTrend", 0)
-            trt.addProperty("isAvgImpr", false)
-            trt.addProperty("isAvgMinorRegr", false)
-            trt.addProperty("isAvgMajorRegr", false)
-            trt.addProperty("ninetiethTrend", 0)
-            trt.addProperty("is90thImpr", false)
-            trt.addProperty("is90thMinorRegr", false)
-            trt.addProperty("is90thMajorRegr", false)
-            val avgTrend: Double = calculateTrend(transaction.avg, benchmarkTx.avg)
-            val avgTrendCalc = java.lang.String.format(
-                "(%1\$f - %3\$f) / %3\$f",
-                transaction.avg,  //%1
-                runId,  //%2
-                benchmarkTx.avg,  //%3
-                benchmarkRunId //%4
-            )
-            putNumberSafely(trt, "avgTrend", avgTrend)
-            var avgTrendD = BigDecimal(trt.get("avgTrend").asDouble)
-            avgTrendD = avgTrendD.setScale(0, RoundingMode.HALF_UP)
-            trt.addProperty("avgTrend", avgTrendD)
-            trt.addProperty("avgTrendCalc", avgTrendCalc)
-            trt.addProperty("isAvgImpr", avgTrend < trendingConfig.trtAvgTholdImpr * -1)
-            trt.addProperty(
-                "isAvgMinorRegr",
-                avgTrend < trendingConfig.trtAvgTholdMajorRegr
-                        && avgTrend > trendingConfig.trtAvgTholdMinorRegr
-            )
-            trt.addProperty("isAvgMajorRegr", avgTrend > trendingConfig.trtAvgTholdMajorRegr)
-            val ninetiethTrend: Double = calculateTrend(
-                transaction.nintieth,
-                benchmarkTx.nintieth
-            )
-            val ninetiethTrendCalc = java.lang.String.format(
-                "(%1\$f - %3\$f) / %3\$f",
-                transaction.nintieth,  //%1
-                runId,  //%2
-                benchmarkTx.nintieth,  //%3
-                benchmarkRunId //%4
-            )
-            putNumberSafely(trt, "ninetiethTrend", ninetiethTrend)
-            var ninetiethTrendD = BigDecimal(trt.get("ninetiethTrend").asDouble)
-            ninetiethTrendD = ninetiethTrendD.setScale(0, RoundingMode.HALF_UP)
-            trt.addProperty("ninetiethTrend", ninetiethTrendD)
-            trt.addProperty("ninetiethTrendCalc", ninetiethTrendCalc)
-            trt.addProperty("is90thImpr", ninetiethTrend < trendingConfig.trtPctlTholdImpr * -1)
-            trt.addProperty(
-                "is90thMinorRegr",
-                ninetiethTrend < trendingConfig.trtPctlTholdMajorRegr && ninetiethTrend > trendingConfig.trtPctlTholdMinorRegr
-            )
-            trt.addProperty("is90thMajorRegr", ninetiethTrend > trendingConfig.trtPctlTholdMajorRegr)
-
-            trt.addProperty("passed", transaction.passed)
-            trt.addProperty("failed", transaction.failed)
-
-            return trt
-        }
-
-        private fun calculateTrend(a: Double, b: Double): Double {
-            var res = (a - b) / b * 100
-            if (java.lang.Double.isInfinite(res) || java.lang.Double.isNaN(res)) {
-                res = 0.0
-            }
-            return res
-        }
     }
 }
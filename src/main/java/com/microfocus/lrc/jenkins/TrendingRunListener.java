@@ -0,0 +1,45 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.jenkins;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+
+/**
+ * Keeps the per job trending store and the latest trending build in sync with the build history.
+ */
+@Extension
+public final class TrendingRunListener extends RunListener<Run<?, ?>> {
+
+    @Override
+    public void onCompleted(final Run<?, ?> run, @NonNull final TaskListener listener) {
+        // not used by a trending report of the build, the run data is not kept with it
+        TestRunDataAction runData = run.getAction(TestRunDataAction.class);
+        if (runData != null) {
+            run.removeAction(runData);
+        }
+        LatestTrendingBuild.onCompleted(run);
+    }
+
+    @Override
+    public void onDeleted(@NonNull final Run<?, ?> run) {
+        TrendingStore store = TrendingStore.existing(run.getParent());
+        if (store != null) {
+            store.delete(run.getNumber());
+        }
+        LatestTrendingBuild.onDeleted(run);
+    }
+}
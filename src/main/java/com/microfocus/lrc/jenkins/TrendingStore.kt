@@ -0,0 +1,657 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.jenkins
+
+import com.google.gson.ExclusionStrategy
+import com.google.gson.FieldAttributes
+import com.google.gson.Gson
+import com.google.gson.GsonBuilder
+import com.microfocus.lrc.core.entity.TransactionColumns
+import com.microfocus.lrc.core.entity.TrendingDataWrapper
+import com.microfocus.lrc.core.entity.TrendingState
+import hudson.model.Job
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.EOFException
+import java.io.File
+import java.io.IOException
+import java.io.InputStream
+import java.io.InputStreamReader
+import java.io.OutputStreamWriter
+import java.lang.ref.SoftReference
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.nio.file.StandardOpenOption
+import java.util.TreeMap
+import java.util.concurrent.ConcurrentHashMap
+import java.util.function.IntFunction
+import java.util.function.ToIntFunction
+import java.util.logging.Level
+import java.util.zip.GZIPInputStream
+import java.util.zip.GZIPOutputStream
+import javax.xml.stream.XMLInputFactory
+import javax.xml.stream.XMLStreamConstants
+import javax.xml.stream.XMLStreamException
+
+/**
+ * Per job, append-only store of the trending data published by each build.
+ *
+ * Trending data is appended to `data.bin`, and a fixed size entry (build number, run id,
+ * test id, tenant, offset and length) is appended to `index.bin`. The index is small and kept in memory,
+ * records are read at their offset in the data file, so a report over N runs reads N records and never loads builds.
+ * Deleted builds are recorded as tombstones, the files are compacted when most of the data is dead.
+ */
+class TrendingStore internal constructor(private val dir: File) {
+    class Entry internal constructor(
+        val buildNo: Int,
+        val runId: Int,
+        val testId: Int,
+        val tenantHash: Int,
+        val buildTime: Long,
+        internal val offset: Long,
+        internal val length: Int,
+        internal val flags: Int
+    ) {
+        fun isSameTest(other: Entry): Boolean {
+            return this.testId == other.testId && this.tenantHash == other.tenantHash
+        }
+    }
+
+    companion object {
+        const val DIR_NAME = "lrc-trending"
+        private const val INDEX_FILE = "index.bin"
+        private const val DATA_FILE = "data.bin"
+        private const val DICT_FILE = "dict.bin"
+        private const val STATE_FILE = "model.json.gz"
+        private const val ENTRY_SIZE = 40
+        private const val FLAG_DELETED = 1
+        // the record is binary, older records are the json of the wrapper
+        private const val FLAG_BINARY = 2
+        private const val COMPACT_MIN_BYTES = 1024L * 1024L
+
+        private val stores = ConcurrentHashMap<String, TrendingStore>()
+
+        private const val BENCHMARKS_DIR = "benchmarks"
+
+        // the transactions are written in binary after the json
+        private val withoutTransactions = compactGson(false)
+        // a benchmark saved in BENCHMARKS_DIR is only referenced by its id
+        private val withoutBenchmark = compactGson(true)
+
+        private fun compactGson(skipBenchmark: Boolean): Gson {
+            return GsonBuilder().setExclusionStrategies(object : ExclusionStrategy {
+                override fun shouldSkipField(f: FieldAttributes): Boolean {
+                    return f.declaredClass == TransactionColumns::class.java ||
+                            (skipBenchmark && f.declaringClass == TrendingDataWrapper::class.java && f.name == "benchmark")
+                }
+
+                override fun shouldSkipClass(clazz: Class<*>): Boolean {
+                    return false
+                }
+            }).create()
+        }
+
+        /**
+         * the store of the job, created (and filled from the build history) on first access.
+         */
+        @JvmStatic
+        fun of(job: Job<*, *>): TrendingStore {
+            val store = cached(File(job.rootDir, DIR_NAME))
+            store.migrate(job)
+            return store
+        }
+
+        /**
+         * the store of the job, only if it has been created.
+         */
+        @JvmStatic
+        fun existing(job: Job<*, *>): TrendingStore? {
+            val dir = File(job.rootDir, DIR_NAME)
+            if (!File(dir, INDEX_FILE).exists()) {
+                return null
+            }
+            return cached(dir)
+        }
+
+        /**
+         * the store of the job without filling it from the build history, to share the benchmarks of its builds.
+         */
+        @JvmStatic
+        fun benchmarks(job: Job<*, *>): TrendingStore {
+            return cached(File(job.rootDir, DIR_NAME))
+        }
+
+        internal fun cached(dir: File): TrendingStore {
+            return stores.computeIfAbsent(dir.absolutePath) { TrendingStore(dir) }
+        }
+
+        /**
+         * forget the stores of the jobs under [rootDir], the item has been deleted.
+         */
+        @JvmStatic
+        fun evict(rootDir: File) {
+            val prefix = rootDir.absolutePath + File.separator
+            stores.keys.removeIf { it.startsWith(prefix) }
+        }
+
+        /**
+         * forget the stores whose job directory no longer exists, the item has been renamed or moved.
+         */
+        @JvmStatic
+        fun evictMoved() {
+            stores.keys.removeIf { !File(it).parentFile.exists() }
+        }
+
+        @JvmStatic
+        fun hasTrendingData(wrapper: TrendingDataWrapper?): Boolean {
+            return (wrapper?.trendingData?.transactions?.size ?: 0) > 0
+        }
+    }
+
+    private val indexFile = File(dir, INDEX_FILE)
+    private val dataFile = File(dir, DATA_FILE)
+    private val dictFile = File(dir, DICT_FILE)
+
+    // build number -> entry, latest build first
+    private var entries: TreeMap<Int, Entry>? = null
+    private var liveBytes = 0L
+    private var migrated = false
+    // the model is as large as the report, it's reloaded from STATE_FILE if the memory is needed
+    private var state: SoftReference<TrendingState>? = null
+    // tenant and run id -> benchmark, shared by the builds using it
+    private val benchmarks = ConcurrentHashMap<String, SoftReference<TrendingDataWrapper.TrendingData>>()
+    // names and scripts of the transactions of the job, the id is the position
+    private var dictionary: Dictionary? = null
+
+    @Synchronized
+    @Throws(IOException::class)
+    fun append(buildNo: Int, buildTime: Long, wrapper: TrendingDataWrapper) {
+        val index = this.loadIndex()
+        Files.createDirectories(this.dir.toPath())
+        val bytes = this.encode(wrapper)
+        val offset = if (this.dataFile.exists()) this.dataFile.length() else 0L
+        Files.write(this.dataFile.toPath(), bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND)
+
+        val entry = Entry(
+            buildNo,
+            wrapper.trendingData.runId,
+            wrapper.trendingData.testId,
+            wrapper.tenantId.hashCode(),
+            buildTime,
+            offset,
+            bytes.size,
+            FLAG_BINARY
+        )
+        this.writeIndexEntry(entry, entry.flags)
+        index.put(buildNo, entry)?.let { this.liveBytes -= it.length }
+        this.liveBytes += bytes.size
+    }
+
+    @Synchronized
+    fun delete(buildNo: Int) {
+        val index = this.loadIndex()
+        val entry = index.remove(buildNo) ?: return
+        this.liveBytes -= entry.length
+        try {
+            this.writeIndexEntry(entry, entry.flags or FLAG_DELETED)
+            this.compactIfNeeded()
+        } catch (e: IOException) {
+            LoggerProxy.sysLogger.log(Level.WARNING, "Failed to delete trending data of build #$buildNo, " + e.message)
+        }
+    }
+
+    /**
+     * the entry of the latest build which has trending data.
+     */
+    @Synchronized
+    fun latest(): Entry? {
+        val index = this.loadIndex()
+        return if (index.isEmpty()) null else index.firstEntry().value
+    }
+
+    /**
+     * up to [count] entries of the same test as [base], starting from [base], latest first.
+     */
+    @Synchronized
+    fun sameTest(base: Entry, count: Int): List<Entry> {
+        return this.loadIndex().tailMap(base.buildNo, true).values.asSequence()
+            .filter { it.isSameTest(base) }
+            .take(count)
+            .toList()
+    }
+
+    /**
+     * the entry of the build, null if it has no trending data.
+     */
+    @Synchronized
+    fun entry(buildNo: Int): Entry? {
+        return this.loadIndex()[buildNo]
+    }
+
+    /**
+     * the trending model computed last time, see [saveState].
+     * callers updating the state should hold the lock of the store.
+     */
+    @Synchronized
+    fun loadState(): TrendingState? {
+        this.state?.get()?.let { return it }
+        val file = File(this.dir, STATE_FILE)
+        if (!file.exists()) {
+            return null
+        }
+        try {
+            InputStreamReader(GZIPInputStream(Files.newInputStream(file.toPath())), StandardCharsets.UTF_8).use {
+                val loaded = Gson().fromJson(it, TrendingState::class.java)
+                this.state = SoftReference(loaded)
+                return loaded
+            }
+        } catch (e: Exception) {
+            LoggerProxy.sysLogger.log(Level.WARNING, "Failed to read trending model, it will be recalculated, " + e.message)
+        }
+        return null
+    }
+
+    /**
+     * save the trending model, it records the builds it was computed from,
+     * so an older model reloaded after a failed save is only updated further.
+     */
+    @Synchronized
+    fun saveState(state: TrendingState) {
+        this.state = SoftReference(state)
+        val file = File(this.dir, STATE_FILE)
+        val tmp = File(this.dir, "$STATE_FILE.tmp")
+        try {
+            Files.createDirectories(this.dir.toPath())
+            OutputStreamWriter(GZIPOutputStream(Files.newOutputStream(tmp.toPath())), StandardCharsets.UTF_8).use {
+                Gson().toJson(state, it)
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING)
+        } catch (e: IOException) {
+            LoggerProxy.sysLogger.log(Level.WARNING, "Failed to save trending model, " + e.message)
+        }
+    }
+
+    /**
+     * the trending data of [entry], only its record is read from the data file.
+     *
+     * the record is read at its offset rather than through a mapping of the data file:
+     * a single mapping is limited to 2 GB, and a mapped file stays open until the buffer is collected,
+     * which prevents compaction from replacing it on Windows.
+     */
+    @Synchronized
+    fun read(entry: Entry): TrendingDataWrapper {
+        val buffer = ByteBuffer.allocate(entry.length)
+        FileChannel.open(this.dataFile.toPath(), StandardOpenOption.READ).use { channel ->
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, entry.offset + buffer.position()) < 0) {
+                    throw EOFException("Trending data of build #${entry.buildNo} is truncated")
+                }
+            }
+        }
+        buffer.flip()
+
+        if (entry.flags and FLAG_BINARY == 0) {
+            val json = StandardCharsets.UTF_8.decode(buffer).toString()
+            return Gson().fromJson(json, TrendingDataWrapper::class.java)
+        }
+        return this.decode(buffer)
+    }
+
+    /**
+     * binary record: the json of the wrapper without transactions, then the transaction columns
+     * of the run and of the benchmark, names and scripts as ids of the dictionary of the job.
+     */
+    private fun encode(wrapper: TrendingDataWrapper): ByteArray {
+        val benchmark = wrapper.benchmark
+        val benchmarkId: Int? = wrapper.benchmarkId
+        val sharedBenchmark = benchmark != null && benchmarkId != null &&
+                this.saveBenchmark(wrapper.tenantId, benchmarkId, benchmark)
+        val gson = if (sharedBenchmark) withoutBenchmark else withoutTransactions
+        val json = gson.toJson(wrapper).toByteArray(StandardCharsets.UTF_8)
+        val bytes = ByteArrayOutputStream(json.size + 64 * (wrapper.trendingData.transactionColumns?.size() ?: 0))
+        val out = DataOutputStream(bytes)
+        out.writeInt(json.size)
+        out.write(json)
+        val dictionary = this.loadDictionary()
+        val added = ByteArrayOutputStream()
+        val addedOut = DataOutputStream(added)
+        val idOf = ToIntFunction<String?> { s ->
+            dictionary.ids.getOrPut(s) {
+                dictionary.strings.add(s)
+                TransactionColumns.writeString(addedOut, s)
+                dictionary.strings.size - 1
+            }
+        }
+        for (data in listOf(wrapper.trendingData, if (sharedBenchmark) null else benchmark)) {
+            val columns = data?.transactionColumns
+            out.writeBoolean(columns != null)
+            columns?.write(out, idOf)
+        }
+        out.flush()
+
+        // new strings are saved before the record using them
+        if (added.size() > 0) {
+            try {
+                Files.write(
+                    this.dictFile.toPath(), added.toByteArray(), StandardOpenOption.CREATE, StandardOpenOption.APPEND
+                )
+            } catch (e: IOException) {
+                // reloaded from what is really on disk
+                this.dictionary = null
+                throw e
+            }
+        }
+        return bytes.toByteArray()
+    }
+
+    private fun decode(buffer: ByteBuffer): TrendingDataWrapper {
+        val input = DataInputStream(ByteBufferInputStream(buffer))
+        val json = ByteArray(input.readInt())
+        input.readFully(json)
+        val wrapper = withoutTransactions.fromJson(String(json, StandardCharsets.UTF_8), TrendingDataWrapper::class.java)
+        val strings = this.loadDictionary().strings
+        for (data in listOf(wrapper.trendingData, wrapper.benchmark)) {
+            if (input.readBoolean()) {
+                val columns = TransactionColumns.read(input, IntFunction { strings[it] })
+                data?.transactionColumns = columns
+            }
+        }
+        val benchmarkId: Int? = wrapper.benchmarkId
+        if (wrapper.benchmark == null && benchmarkId != null) {
+            wrapper.benchmark = this.benchmark(wrapper.tenantId, benchmarkId)
+        }
+        return wrapper
+    }
+
+    /**
+     * the benchmark run of the builds of the job, saved once by [saveBenchmark] and cached.
+     */
+    fun benchmark(tenantId: String, runId: Int): TrendingDataWrapper.TrendingData? {
+        val key = RunDataCache.key(tenantId, runId)
+        this.benchmarks[key]?.get()?.let { return it }
+
+        val file = File(File(this.dir, BENCHMARKS_DIR), "$key.bin")
+        if (!file.exists()) {
+            return null
+        }
+        return try {
+            val benchmark = TrendingDataWrapper.benchmarkFromBytes(Files.readAllBytes(file.toPath()))
+            this.benchmarks[key] = SoftReference(benchmark)
+            benchmark
+        } catch (e: IOException) {
+            LoggerProxy.sysLogger.log(Level.WARNING, "Failed to read benchmark $key, " + e.message)
+            null
+        }
+    }
+
+    /**
+     * save the benchmark once for all the builds using it, the data of an ended run never changes.
+     *
+     * @return false if it could not be saved, the benchmark must then be kept with the build
+     */
+    fun saveBenchmark(tenantId: String, runId: Int, benchmark: TrendingDataWrapper.TrendingData): Boolean {
+        val key = RunDataCache.key(tenantId, runId)
+        val dir = File(this.dir, BENCHMARKS_DIR)
+        val file = File(dir, "$key.bin")
+        if (file.exists()) {
+            return true
+        }
+        return try {
+            Files.createDirectories(dir.toPath())
+            val tmp = File.createTempFile(key, ".tmp", dir)
+            Files.write(tmp.toPath(), TrendingDataWrapper.benchmarkToBytes(benchmark))
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING)
+            this.benchmarks[key] = SoftReference(benchmark)
+            true
+        } catch (e: IOException) {
+            LoggerProxy.sysLogger.log(Level.WARNING, "Failed to save benchmark $key, " + e.message)
+            false
+        }
+    }
+
+    private class Dictionary {
+        val strings = ArrayList<String?>()
+        val ids = HashMap<String?, Int>()
+    }
+
+    private class ByteBufferInputStream(private val buffer: ByteBuffer) : InputStream() {
+        override fun read(): Int {
+            return if (buffer.hasRemaining()) buffer.get().toInt() and 0xff else -1
+        }
+
+        override fun read(b: ByteArray, off: Int, len: Int): Int {
+            if (!buffer.hasRemaining()) {
+                return -1
+            }
+            val n = minOf(len, buffer.remaining())
+            buffer.get(b, off, n)
+            return n
+        }
+    }
+
+    private fun loadDictionary(): Dictionary {
+        this.dictionary?.let { return it }
+
+        val dictionary = Dictionary()
+        if (this.dictFile.exists()) {
+            val bytes = Files.readAllBytes(this.dictFile.toPath())
+            val buffer = ByteBuffer.wrap(bytes)
+            val input = DataInputStream(ByteBufferInputStream(buffer))
+            var valid = 0
+            try {
+                while (buffer.hasRemaining()) {
+                    val s = TransactionColumns.readString(input)
+                    dictionary.ids.putIfAbsent(s, dictionary.strings.size)
+                    dictionary.strings.add(s)
+                    valid = buffer.position()
+                }
+            } catch (e: EOFException) {
+                // a partially written string at the end, no record refers to it
+                FileChannel.open(this.dictFile.toPath(), StandardOpenOption.WRITE).use { it.truncate(valid.toLong()) }
+            }
+        }
+        this.dictionary = dictionary
+        return dictionary
+    }
+
+    private fun writeIndexEntry(entry: Entry, flags: Int) {
+        val buf = ByteBuffer.allocate(ENTRY_SIZE)
+        buf.putInt(entry.buildNo)
+        buf.putInt(entry.runId)
+        buf.putInt(entry.testId)
+        buf.putInt(entry.tenantHash)
+        buf.putLong(entry.buildTime)
+        buf.putLong(entry.offset)
+        buf.putInt(entry.length)
+        buf.putInt(flags)
+        Files.createDirectories(this.dir.toPath())
+        Files.write(this.indexFile.toPath(), buf.array(), StandardOpenOption.CREATE, StandardOpenOption.APPEND)
+    }
+
+    private fun loadIndex(): TreeMap<Int, Entry> {
+        this.entries?.let { return it }
+
+        val index = TreeMap<Int, Entry>(Comparator.reverseOrder())
+        this.liveBytes = 0L
+        if (this.indexFile.exists()) {
+            val dataSize = if (this.dataFile.exists()) this.dataFile.length() else 0L
+            val buf = ByteBuffer.wrap(Files.readAllBytes(this.indexFile.toPath()))
+            // a partially written entry at the end is ignored
+            while (buf.remaining() >= ENTRY_SIZE) {
+                val buildNo = buf.int
+                val runId = buf.int
+                val testId = buf.int
+                val tenantHash = buf.int
+                val buildTime = buf.long
+                val offset = buf.long
+                val length = buf.int
+                val flags = buf.int
+                val entry = Entry(buildNo, runId, testId, tenantHash, buildTime, offset, length, flags and FLAG_DELETED.inv())
+                if (flags and FLAG_DELETED != 0) {
+                    index.remove(entry.buildNo)
+                } else if (entry.offset + entry.length <= dataSize) {
+                    index[entry.buildNo] = entry
+                }
+            }
+            index.values.forEach { this.liveBytes += it.length }
+        }
+
+        this.entries = index
+        return index
+    }
+
+    private fun compactIfNeeded() {
+        val total = if (this.dataFile.exists()) this.dataFile.length() else 0L
+        if (total < COMPACT_MIN_BYTES || this.liveBytes * 2 > total) {
+            return
+        }
+
+        val index = this.loadIndex()
+        val tmpData = File(this.dir, "$DATA_FILE.tmp")
+        val tmpIndex = File(this.dir, "$INDEX_FILE.tmp")
+        val compacted = TreeMap<Int, Entry>(Comparator.reverseOrder())
+        FileChannel.open(this.dataFile.toPath(), StandardOpenOption.READ).use { src ->
+            FileChannel.open(
+                tmpData.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+            ).use { dst ->
+                // keep the oldest build first, as if they were appended again
+                for (entry in index.descendingMap().values) {
+                    val offset = dst.position()
+                    var copied = 0L
+                    while (copied < entry.length) {
+                        copied += src.transferTo(entry.offset + copied, entry.length - copied, dst)
+                    }
+                    compacted[entry.buildNo] = Entry(
+                        entry.buildNo, entry.runId, entry.testId, entry.tenantHash, entry.buildTime,
+                        offset, entry.length, entry.flags
+                    )
+                }
+            }
+        }
+
+        val buf = ByteBuffer.allocate(ENTRY_SIZE * compacted.size)
+        for (entry in compacted.descendingMap().values) {
+            buf.putInt(entry.buildNo).putInt(entry.runId).putInt(entry.testId).putInt(entry.tenantHash)
+            buf.putLong(entry.buildTime).putLong(entry.offset).putInt(entry.length).putInt(entry.flags)
+        }
+        Files.write(tmpIndex.toPath(), buf.array())
+
+        Files.move(tmpData.toPath(), this.dataFile.toPath(), StandardCopyOption.REPLACE_EXISTING)
+        Files.move(tmpIndex.toPath(), this.indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING)
+        this.entries = compacted
+    }
+
+    /**
+     * fill the store from the build history once, for jobs published before the store existed.
+     * the trending data is read from the build directories, only the builds still keeping it
+     * in build.xml (saved by older versions and not migrated yet) are loaded.
+     */
+    @Synchronized
+    private fun migrate(job: Job<*, *>) {
+        if (this.migrated) {
+            return
+        }
+        this.migrated = true
+        if (this.indexFile.exists()) {
+            return
+        }
+
+        try {
+            Files.createDirectories(this.dir.toPath())
+            Files.write(this.indexFile.toPath(), ByteArray(0), StandardOpenOption.CREATE)
+            val buildDir = job.buildDir
+            // oldest first, as if they were appended by each build
+            val numbers = buildDir.list()?.mapNotNull { it.toIntOrNull() }?.sorted() ?: emptyList()
+            for (number in numbers) {
+                this.migrateBuild(job, number, File(buildDir, number.toString()))
+            }
+        } catch (e: IOException) {
+            LoggerProxy.sysLogger.log(Level.WARNING, "Failed to migrate trending data of ${job.fullName}, " + e.message)
+        }
+    }
+
+    private fun migrateBuild(job: Job<*, *>, number: Int, buildDir: File) {
+        val buildXml = File(buildDir, "build.xml")
+        val dataFile = File(buildDir, TestRunReportBuildAction.TRENDING_DATA_FILE)
+        if (!buildXml.exists()) {
+            return
+        }
+        try {
+            val info = BuildXmlInfo.read(buildXml)
+            if (dataFile.exists()) {
+                val wrapper = TestRunReportBuildAction.readTrendingData(dataFile)
+                if (hasTrendingData(wrapper) && info.timestamp != null) {
+                    this.append(number, info.timestamp, wrapper)
+                }
+            } else if (info.legacyTrendingData) {
+                val build = job.getBuildByNumber(number) ?: return
+                val action = build.getAction(TestRunReportBuildAction::class.java) ?: return
+                val wrapper = action.trendingDataWrapper
+                if (hasTrendingData(wrapper)) {
+                    this.append(number, build.timeInMillis, wrapper)
+                }
+            }
+        } catch (e: IOException) {
+            LoggerProxy.sysLogger.log(Level.WARNING, "Failed to migrate trending data of build #$number, " + e.message)
+        } catch (e: XMLStreamException) {
+            LoggerProxy.sysLogger.log(Level.WARNING, "Failed to migrate trending data of build #$number, " + e.message)
+        }
+    }
+
+    /**
+     * what the migration needs from build.xml, read as a stream without loading the build.
+     */
+    private class BuildXmlInfo(val timestamp: Long?, val legacyTrendingData: Boolean) {
+        companion object {
+            private val factory: XMLInputFactory = XMLInputFactory.newFactory().apply {
+                setProperty(XMLInputFactory.SUPPORT_DTD, false)
+                setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false)
+            }
+
+            fun read(file: File): BuildXmlInfo {
+                var timestamp: Long? = null
+                var legacy = false
+                Files.newInputStream(file.toPath()).use { input ->
+                    val reader = factory.createXMLStreamReader(input)
+                    try {
+                        var depth = 0
+                        while (reader.hasNext()) {
+                            when (reader.next()) {
+                                XMLStreamConstants.START_ELEMENT -> {
+                                    depth++
+                                    // <build><timestamp>, the actions come before it
+                                    if (depth == 2 && reader.localName == "timestamp") {
+                                        timestamp = reader.elementText.trim().toLongOrNull()
+                                        break
+                                    }
+                                    if (reader.localName == "trendingDataWrapper") {
+                                        legacy = true
+                                    }
+                                }
+                                XMLStreamConstants.END_ELEMENT -> depth--
+                            }
+                        }
+                    } finally {
+                        reader.close()
+                    }
+                }
+                return BuildXmlInfo(timestamp, legacy)
+            }
+        }
+    }
+}
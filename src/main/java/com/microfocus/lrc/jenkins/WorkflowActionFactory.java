@@ -31,33 +31,19 @@ public final class WorkflowActionFactory extends TransientActionFactory<Job> {
         return Job.class;
     }
 
-    @SuppressWarnings("java:S2629")
     @NonNull
     @Override
     public Collection<? extends Action> createFor(@NonNull final Job job) {
-        TestRunReportBuildAction buildAction = TestRunReportBuildAction.getLastBuildActionHasTrendingData(job);
-        if (buildAction != null) {
-            try {
-                LoggerProxy.getSysLogger().log(
-                        Level.FINE,
-                        String.format(
-                                "*******valid build action found*******%n"
-                                        + "build#%s%n"
-                                        + "trendingConfig %s%n"
-                                        + "trendingReport %s",
-                                buildAction.getRun().getId(),
-                                buildAction.getTrendingConfig().toString(),
-                                buildAction.getTrendingReportHTML() == null
-                                        ? "NULL"
-                                        : buildAction.getTrendingReportHTML().length()
-                        )
-                );
-            } catch (Exception ignored) {
-                // ignore
-            }
-            return Collections.singletonList(new TestRunReportProjectAction(job, buildAction.getTrendingConfig()));
+        // called for every job on every page, no build is loaded here
+        if (!LatestTrendingBuild.exists(job)) {
+            return Collections.emptyList();
         }
-        return Collections.emptyList();
+        if (LoggerProxy.getSysLogger().isLoggable(Level.FINE)) {
+            LoggerProxy.getSysLogger().fine(
+                    "latest build with trending data of " + job.getFullName() + ": #" + LatestTrendingBuild.number(job)
+            );
+        }
+        return Collections.singletonList(new TestRunReportProjectAction(job));
     }
 
 }
@@ -0,0 +1,117 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.microfocus.lrc.core.HTMLTemplate;
+import com.microfocus.lrc.core.TrendingCalculator;
+import com.microfocus.lrc.core.TrendingFixtures;
+import com.microfocus.lrc.core.entity.TrendingRun;
+import com.mitchellbosecke.pebble.PebbleEngine;
+import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of rendering a standalone trending report page with {@code transactions} transactions:
+ * a new engine compiling the template and reading the resources on every call,
+ * against the cached engine of {@link HTMLTemplate}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class HTMLTemplateBenchmark {
+    private static final String TEMPLATE = "trending_report/run_report.twig";
+    private static final String[] ASSETS = {"pureCss", "pure.min.css", "lodashjs", "lodash.min.js", "momentjs", "moment.min.js"};
+
+    @Param({"100"})
+    public int transactions;
+
+    private JsonObject data;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        List<TrendingRun> runs = TrendingFixtures.runs(10, this.transactions);
+        JsonObject report = new JsonObject();
+        report.add("data", new Gson().toJsonTree(TrendingCalculator.calculate(
+                runs, runs.get(0).getData(), null, TrendingFixtures.config(), new StringBuilder()
+        )));
+
+        this.data = new JsonObject();
+        this.data.addProperty("pageTitle", "LoadRunner Cloud Test Runs Trending Report");
+        this.data.addProperty("standalone", true);
+        this.data.addProperty("report", report.toString());
+        for (int i = 0; i < ASSETS.length; i += 2) {
+            this.data.addProperty(ASSETS[i], readAsset(ASSETS[i + 1]));
+        }
+    }
+
+    private static String readAsset(final String name) throws IOException {
+        return new String(
+                Files.readAllBytes(Paths.get("src", "main", "webapp", "trending_report", name)),
+                StandardCharsets.UTF_8
+        );
+    }
+
+    @Benchmark
+    public String newEngineEachCall() throws IOException {
+        String template;
+        try (InputStream in = HTMLTemplate.class.getClassLoader().getResourceAsStream(TEMPLATE)) {
+            template = IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+        Map<String, Object> context = new HashMap<>();
+        for (String key : this.data.keySet()) {
+            context.put(key, this.data.get(key).getAsJsonPrimitive().isBoolean()
+                    ? this.data.get(key).getAsBoolean()
+                    : this.data.get(key).getAsString());
+        }
+        for (int i = 0; i < ASSETS.length; i += 2) {
+            context.put(ASSETS[i], readAsset(ASSETS[i + 1]));
+        }
+
+        PebbleEngine engine = new PebbleEngine.Builder().methodAccessValidator((object, method) -> false).build();
+        PebbleTemplate compiledTemplate = engine.getLiteralTemplate(template);
+        StringWriter writer = new StringWriter();
+        compiledTemplate.evaluate(writer, context);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public String cachedEngine() throws IOException {
+        return HTMLTemplate.generateByPebble(TEMPLATE, this.data);
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.microfocus.lrc.benchmark
+
+import com.google.gson.Gson
+import com.google.gson.JsonArray
+import com.google.gson.JsonObject
+import com.microfocus.lrc.core.entity.TrendingConfiguration
+import com.microfocus.lrc.core.entity.TrendingDataWrapper
+import java.math.BigDecimal
+import java.math.RoundingMode
+import java.util.stream.Collectors
+
+/**
+ * the trend computation of TrendingReport.generateReport before it moved to TrendingCalculator,
+ * kept as the baseline of the benchmarks. Every build's wrapper is serialized to a JSON string and
+ * parsed back for each of its transactions, in the grouping, calculateTRT and getPreviousRunTrans.
+ *
+ * Only the computation is kept, the build lookup and the page rendering are left out.
+ */
+object LegacyTrendingCalculator {
+    /**
+     * @param builds wrappers of the builds, latest first, the build number is the run id
+     */
+    @JvmStatic
+    fun calculate(builds: List<TrendingDataWrapper>, trendingConfig: TrendingConfiguration): JsonObject {
+        val latest = builds[0]
+        val generatorLogs = StringBuilder()
+        val benchmark: TrendingDataWrapper.TrendingData = latest.benchmark ?: latest.trendingData
+
+        val trendingDataWrapperList: List<JsonObject> = builds.stream().map { w ->
+            val tempTrd = JsonObject()
+            tempTrd.addProperty("data", Gson().toJson(w))
+            tempTrd.addProperty("buildId", w.trendingData.runId)
+            tempTrd.addProperty("buildDate", "2022.06.22 12:54:00")
+            tempTrd
+        }.collect(Collectors.toList())
+
+        val overviews = JsonArray()
+        trendingDataWrapperList.forEach { overviews.add(getOverviewFromTrendingData(it)) }
+
+        val trts = JsonArray()
+        val transactionsGroup: Map<Pair<String, String>, List<JsonObject>> =
+            trendingDataWrapperList.stream().flatMap { t: JsonObject ->
+                (Gson().fromJson(
+                    t.get("data").asString,
+                    TrendingDataWrapper::class.java
+                )).trendingData.transactions.stream()
+                    .map { trans ->
+                        val tempTrans = JsonObject()
+                        val trendingDataWrapper: TrendingDataWrapper =
+                            Gson().fromJson(t.get("data").asString, TrendingDataWrapper::class.java)
+                        tempTrans.addProperty("data", Gson().toJson(trans))
+                        tempTrans.addProperty("buildId", t.get("buildId").asInt)
+                        tempTrans.addProperty("runId", trendingDataWrapper.trendingData.runId)
+                        tempTrans.addProperty("percentile", trendingDataWrapper.trendingData.percentile)
+                        tempTrans
+                    }
+            }.collect(
+                Collectors.groupingBy { transJSON ->
+                    val trans: TrendingDataWrapper.TransactionData =
+                        Gson().fromJson(
+                            transJSON.get("data").asString,
+                            TrendingDataWrapper.TransactionData::class.java
+                        )
+                    return@groupingBy Pair(trans.name, trans.script)
+                }
+            )
+
+        transactionsGroup.forEach { (transScriptName: Pair<String?, String?>, transJSONList: List<JsonObject>) ->
+            generatorLogs.append(
+                String.format(
+                    "processing transaction group: %1\$s - %2\$s%n",
+                    transScriptName.first,
+                    transScriptName.second
+                )
+            )
+            val trtGroup = JsonObject()
+            trtGroup.addProperty("transactionName", transScriptName.first)
+            trtGroup.addProperty("scriptName", transScriptName.second)
+            trtGroup.add("trtDataArr", JsonArray())
+            transJSONList.stream()
+                .map { transJSON: JsonObject ->
+                    var benchmarkTrans: TrendingDataWrapper.TransactionData? = benchmark.transactions.stream()
+                        .filter { t -> (transScriptName.first == t.name) && (transScriptName.second == t.script) }
+                        .findAny().orElse(null)
+                    var benchmarkRunId: Int = benchmark.runId
+                    if (latest.benchmarkId == null) {
+                        val prevData: Pair<Int, TrendingDataWrapper.TransactionData?>? =
+                            getPreviousRunTrans(transJSONList, transJSON.get("runId").asInt)
+                        if ((prevData != null) && (prevData.second != null)) {
+                            benchmarkTrans = prevData.second
+                            benchmarkRunId = prevData.first
+                        } else {
+                            benchmarkTrans = Gson().fromJson(
+                                transJSON.get("data").asString,
+                                TrendingDataWrapper.TransactionData::class.java
+                            )
+                            benchmarkRunId = transJSON.get("runId").asInt
+                        }
+                    }
+                    calculateTRT(
+                        transJSON.get("runId").asInt,
+                        benchmarkRunId,
+                        transJSON.get("buildId").asInt,
+                        transJSON.get("percentile").asInt,
+                        Gson().fromJson(
+                            transJSON.get("data").asString,
+                            TrendingDataWrapper.TransactionData::class.java
+                        ),
+                        benchmarkTrans,
+                        trendingConfig
+                    )
+                }.forEach { trtJSON ->
+                    trtGroup.getAsJsonArray("trtDataArr").add(trtJSON)
+                }
+            trts.add(trtGroup)
+        }
+
+        val data = JsonObject()
+        data.add("metrics", overviews)
+        data.add("trt", trts)
+        data.addProperty("generatorLogs", generatorLogs.toString())
+        return data
+    }
+
+    private fun getOverviewFromTrendingData(jsonObject: JsonObject): JsonObject {
+        val trendingData: TrendingDataWrapper.TrendingData =
+            Gson().fromJson(jsonObject.get("data").asString, TrendingDataWrapper::class.java).trendingData
+        val overview = JsonObject()
+        overview.addProperty("runId", trendingData.runId)
+        overview.addProperty("buildNo", jsonObject.get("buildId").asInt)
+        putNumberSafely(overview, "avgHits", trendingData.avgHits)
+        putNumberSafely(overview, "avgThroughput", trendingData.avgThroughput)
+        putNumberSafely(overview, "errorsPerSec", trendingData.errorsPerSec)
+        putNumberSafely(overview, "duration", trendingData.duration)
+        putNumberSafely(overview, "initDuration", trendingData.initDuration.toDouble())
+        overview.addProperty("vusers", trendingData.vusers)
+        putNumberSafely(
+            overview,
+            "tps",
+            (trendingData.totalTxPassed + trendingData.totalTxFailed).toDouble() / trendingData.duration
+        )
+        overview.addProperty("totalTxPassed", trendingData.totalTxPassed)
+        overview.addProperty("totalTxFailed", trendingData.totalTxFailed)
+        overview.addProperty("status", trendingData.status)
+        overview.addProperty("date", jsonObject.get("buildDate").asString)
+        return overview
+    }
+
+    private fun putNumberSafely(json: JsonObject, key: String, value: Double) {
+        var safeVal = value
+        if (java.lang.Double.isInfinite(safeVal) || java.lang.Double.isNaN(safeVal)) {
+            safeVal = 0.0
+        }
+        json.addProperty(key, safeVal)
+    }
+
+    private fun getPreviousRunTrans(
+        transJSONList: List<JsonObject>,
+        currentRunId: Int
+    ): Pair<Int, TrendingDataWrapper.TransactionData?>? {
+        val prevRunId = transJSONList.stream()
+            .map { trans: JsonObject -> trans.get("runId").asInt }
+            .filter { x -> x < currentRunId }
+            .max(Comparator.naturalOrder())
+            .orElse(null) ?: return null
+
+        val prevTrans: JsonObject = transJSONList.stream()
+            .filter { x: JsonObject -> x.get("runId").asInt == prevRunId }
+            .findFirst()
+            .get()
+        val prevTransactionData: TrendingDataWrapper.TransactionData = Gson().fromJson(
+            prevTrans.get("data").asString, TrendingDataWrapper.TransactionData::class.java
+        )
+        return Pair(prevRunId, prevTransactionData)
+    }
+
+    @Suppress("LongParameterList")
+    private fun calculateTRT(
+        runId: Int,
+        benchmarkRunId: Int,
+        buildId: Int,
+        percentile: Int,
+        transaction: TrendingDataWrapper.TransactionData,
+        benchmarkTrans: TrendingDataWrapper.TransactionData?,
+        trendingConfig: TrendingConfiguration
+    ): JsonObject {
+        val benchmarkTx = benchmarkTrans ?: transaction
+        val trt = JsonObject()
+        trt.addProperty("runId", runId)
+        trt.addProperty("buildNo", buildId)
+        trt.addProperty("percentile", percentile)
+        putNumberSafely(trt, "avg", transaction.avg)
+        trt.addProperty("avg", BigDecimal(trt.get("avg").asDouble).setScale(3, RoundingMode.HALF_UP))
+        putNumberSafely(trt, "ninetieth", transaction.nintieth)
+        trt.addProperty("ninetieth", BigDecimal(trt.get("ninetieth").asDouble).setScale(3, RoundingMode.HALF_UP))
+
+        val avgTrend: Double = calculateTrend(transaction.avg, benchmarkTx.avg)
+        val avgTrendCalc = String.format("(%1\$f - %3\$f) / %3\$f", transaction.avg, runId, benchmarkTx.avg, benchmarkRunId)
+        putNumberSafely(trt, "avgTrend", avgTrend)
+        trt.addProperty("avgTrend", BigDecimal(trt.get("avgTrend").asDouble).setScale(0, RoundingMode.HALF_UP))
+        trt.addProperty("avgTrendCalc", avgTrendCalc)
+        trt.addProperty("isAvgImpr", avgTrend < trendingConfig.trtAvgTholdImpr * -1)
+        trt.addProperty(
+            "isAvgMinorRegr",
+            avgTrend < trendingConfig.trtAvgTholdMajorRegr && avgTrend > trendingConfig.trtAvgTholdMinorRegr
+        )
+        trt.addProperty("isAvgMajorRegr", avgTrend > trendingConfig.trtAvgTholdMajorRegr)
+
+        val ninetiethTrend: Double = calculateTrend(transaction.nintieth, benchmarkTx.nintieth)
+        val ninetiethTrendCalc = String.format(
+            "(%1\$f - %3\$f) / %3\$f", transaction.nintieth, runId, benchmarkTx.nintieth, benchmarkRunId
+        )
+        putNumberSafely(trt, "ninetiethTrend", ninetiethTrend)
+        trt.addProperty(
+            "ninetiethTrend",
+            BigDecimal(trt.get("ninetiethTrend").asDouble).setScale(0, RoundingMode.HALF_UP)
+        )
+        trt.addProperty("ninetiethTrendCalc", ninetiethTrendCalc)
+        trt.addProperty("is90thImpr", ninetiethTrend < trendingConfig.trtPctlTholdImpr * -1)
+        trt.addProperty(
+            "is90thMinorRegr",
+            ninetiethTrend < trendingConfig.trtPctlTholdMajorRegr
+                    && ninetiethTrend > trendingConfig.trtPctlTholdMinorRegr
+        )
+        trt.addProperty("is90thMajorRegr", ninetiethTrend > trendingConfig.trtPctlTholdMajorRegr)
+
+        trt.addProperty("passed", transaction.passed)
+        trt.addProperty("failed", transaction.failed)
+        return trt
+    }
+
+    private fun calculateTrend(a: Double, b: Double): Double {
+        val res = (a - b) / b * 100
+        return if (java.lang.Double.isInfinite(res) || java.lang.Double.isNaN(res)) 0.0 else res
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.microfocus.lrc.benchmark;
+
+import com.google.gson.JsonObject;
+import com.microfocus.lrc.core.TrendingCalculator;
+import com.microfocus.lrc.core.TrendingFixtures;
+import com.microfocus.lrc.core.entity.TrendingConfiguration;
+import com.microfocus.lrc.core.entity.TrendingDataWrapper;
+import com.microfocus.lrc.core.entity.TrendingModel;
+import com.microfocus.lrc.core.entity.TrendingRun;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The JSON round-tripping computation replaced by {@link TrendingCalculator} against the typed one,
+ * on the same builds and with the benchmark set to "Previous". The sizes are kept small enough for
+ * {@link LegacyTrendingCalculator} to finish, {@link TrendingCalculatorBenchmark} covers the large ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TrendingBaselineBenchmark {
+    @Param({"5", "10"})
+    public int runs;
+
+    @Param({"200"})
+    public int transactions;
+
+    private List<TrendingDataWrapper> wrappers;
+    private List<TrendingRun> trendingRuns;
+    private TrendingConfiguration config;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.wrappers = TrendingFixtures.wrappers(this.runs, this.transactions);
+        this.trendingRuns = this.wrappers.stream()
+                .map(w -> new TrendingRun(w.getTrendingData().getRunId(), "2022.06.22 12:54:00", w.getTrendingData()))
+                .collect(Collectors.toList());
+        this.config = TrendingFixtures.config();
+    }
+
+    @Benchmark
+    public JsonObject legacyJsonRoundTrip() {
+        return LegacyTrendingCalculator.calculate(this.wrappers, this.config);
+    }
+
+    @Benchmark
+    public TrendingModel typedModel() {
+        return TrendingCalculator.calculate(
+                this.trendingRuns,
+                this.trendingRuns.get(0).getData(),
+                null,
+                this.config,
+                new StringBuilder()
+        );
+    }
+}
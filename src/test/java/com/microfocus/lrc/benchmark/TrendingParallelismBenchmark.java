@@ -0,0 +1,79 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.benchmark;
+
+import com.microfocus.lrc.core.TrendingCalculator;
+import com.microfocus.lrc.core.TrendingFixtures;
+import com.microfocus.lrc.core.entity.TrendingConfiguration;
+import com.microfocus.lrc.core.entity.TrendingModel;
+import com.microfocus.lrc.core.entity.TrendingRun;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of the trending model computation with the number of threads computing transaction groups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TrendingParallelismBenchmark {
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    @Param({"5000"})
+    public int transactions;
+
+    private List<TrendingRun> trendingRuns;
+    private TrendingConfiguration config;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.trendingRuns = TrendingFixtures.runs(50, this.transactions);
+        this.config = TrendingFixtures.config();
+        this.pool = new ForkJoinPool(this.parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.pool.shutdown();
+    }
+
+    @Benchmark
+    public TrendingModel previousAsBenchmark() {
+        return TrendingCalculator.calculate(
+                this.trendingRuns,
+                this.trendingRuns.get(0).getData(),
+                null,
+                this.config,
+                new StringBuilder(),
+                this.pool
+        );
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.core
+
+import com.microfocus.lrc.core.entity.TrendingRun
+import org.junit.Assert
+import org.junit.Test
+
+class TransactionIndexTest {
+
+    private fun run(runId: Int, vararg names: String): TrendingRun {
+        val txArr = names.map { TrendingFixtures.tx(it, "script", 1F, 1F) }.toTypedArray()
+        return TrendingRun(runId, "2022.06.22 12:54:00", TrendingFixtures.wrapper(runId, txArr, null).trendingData)
+    }
+
+    @Test
+    fun groupsAndPreviousRun() {
+        val index = TransactionIndex(
+            listOf(run(5, "login", "logout"), run(2, "login"), run(4, "login", "logout"), run(1, "logout"))
+        )
+
+        val groups = index.groups.toList()
+        Assert.assertEquals(2, groups.size)
+        val login = groups[0]
+        Assert.assertEquals("login", login.key.name)
+        Assert.assertEquals(listOf(5, 2, 4), login.runs.map { it.data.runId })
+        // 5 -> 4, 2 -> none, 4 -> 2
+        Assert.assertEquals(2, login.previousOf(0))
+        Assert.assertEquals(-1, login.previousOf(1))
+        Assert.assertEquals(1, login.previousOf(2))
+
+        val logout = groups[1]
+        Assert.assertEquals(listOf(5, 4, 1), logout.runs.map { it.data.runId })
+        Assert.assertEquals(1, logout.previousOf(0))
+        Assert.assertEquals(2, logout.previousOf(1))
+    }
+
+    @Test
+    fun internedKeys() {
+        val index = TransactionIndex(emptyList())
+        val a = index.intern("login", "script")
+        val b = index.intern(String(charArrayOf('l', 'o', 'g', 'i', 'n')), "script")
+        Assert.assertSame(a, b)
+        Assert.assertNotEquals(a, index.intern("login", null))
+    }
+}
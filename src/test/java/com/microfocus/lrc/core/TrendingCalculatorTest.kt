@@ -0,0 +1,236 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.core
+
+import com.google.gson.Gson
+import com.microfocus.lrc.core.entity.TrendingConfiguration
+import com.microfocus.lrc.core.entity.TrendingDataWrapper
+import com.microfocus.lrc.core.entity.TrendingRun
+import com.microfocus.lrc.core.entity.TrendingUpdate
+import org.junit.Assert
+import org.junit.Test
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.ObjectInputStream
+import java.io.ObjectOutputStream
+import java.math.BigDecimal
+import java.util.concurrent.ForkJoinPool
+
+class TrendingCalculatorTest {
+
+    private fun run(runId: Int, avg: Float): TrendingRun {
+        val wrapper = TrendingFixtures.wrapper(
+            runId,
+            arrayOf(TrendingFixtures.tx("login", "script", avg, avg)),
+            null
+        )
+        return TrendingRun(runId + 100, "2022.06.22 12:54:00", wrapper.trendingData)
+    }
+
+    @Test
+    fun previousRunAsBenchmark() {
+        val runs = listOf(run(3, 3F), run(1, 1F), run(2, 2F))
+
+        val model = TrendingCalculator.calculate(
+            runs,
+            runs[0].data,
+            null,
+            TrendingFixtures.config(),
+            StringBuilder()
+        )
+
+        Assert.assertEquals(3, model.metrics.size)
+        Assert.assertEquals(103, model.metrics[0].buildNo)
+        Assert.assertEquals(1, model.trt.size)
+        val trends = model.trt[0].trtDataArr
+        Assert.assertEquals(listOf(3, 1, 2), trends.map { it.runId })
+        // run 3 compares to run 2, run 2 to run 1, run 1 to itself
+        Assert.assertEquals(BigDecimal("50"), trends[0].avgTrend)
+        Assert.assertTrue(trends[0].isAvgMajorRegr)
+        Assert.assertEquals(BigDecimal("0"), trends[1].avgTrend)
+        Assert.assertEquals(BigDecimal("100"), trends[2].avgTrend)
+        Assert.assertEquals(BigDecimal("2.000"), trends[2].avg)
+    }
+
+    @Test
+    fun fixedBenchmark() {
+        val benchmark = TrendingFixtures.wrapper(
+            10,
+            arrayOf(TrendingFixtures.tx("login", "script", 4F, 4F)),
+            null
+        )
+        val runs = listOf(run(12, 3F), run(11, 4.2F))
+
+        val model = TrendingCalculator.calculate(
+            runs,
+            benchmark.trendingData,
+            10,
+            TrendingFixtures.config(),
+            StringBuilder()
+        )
+
+        val trends = model.trt[0].trtDataArr
+        Assert.assertEquals(BigDecimal("-25"), trends[0].avgTrend)
+        Assert.assertTrue(trends[0].isAvgImpr)
+        Assert.assertEquals(BigDecimal("5"), trends[1].avgTrend)
+        Assert.assertFalse(trends[1].isAvgMinorRegr)
+        Assert.assertFalse(trends[1].isAvgImpr)
+    }
+
+    @Test
+    fun transactionMissingInBenchmark() {
+        val benchmark = TrendingFixtures.wrapper(
+            10,
+            arrayOf(TrendingFixtures.tx("logout", "script", 4F, 4F)),
+            null
+        )
+
+        val model = TrendingCalculator.calculate(
+            listOf(run(12, 3F)),
+            benchmark.trendingData,
+            10,
+            TrendingFixtures.config(),
+            StringBuilder()
+        )
+
+        // compares to itself
+        Assert.assertEquals(BigDecimal("0"), model.trt[0].trtDataArr[0].avgTrend)
+    }
+
+    // a transaction is missing from every third run
+    private fun historyWrapper(runId: Int): TrendingDataWrapper {
+        val txArr = (0 until 4).filter { it != runId % 3 }
+            .map { TrendingFixtures.tx("tx_$it", "script", runId + it.toFloat(), (runId + it) * 1.5F) }
+        return TrendingFixtures.wrapper(runId, txArr.toTypedArray(), null)
+    }
+
+    // runs 1..[count], latest first
+    private fun history(count: Int): List<TrendingRun> {
+        return (count downTo 1).map { runId ->
+            TrendingRun(runId + 100, "", historyWrapper(runId).trendingData)
+        }.toList()
+    }
+
+    private fun assertIncrementalSameAsFull(benchmarkId: Int?) {
+        val all = history(8)
+        val benchmark = all.last().data
+        val byBuild = all.associateBy({ it.buildNo }, { it.data })
+        val state = TrendingCalculator.calculateState(
+            all.subList(3, 8), benchmark, benchmarkId, TrendingFixtures.config(), StringBuilder()
+        )
+
+        // 3 new builds, the window is still 5 runs
+        val updated = TrendingCalculator.update(
+            state,
+            all.subList(0, 5).map { it.buildNo },
+            all.subList(0, 3),
+            benchmark,
+            benchmarkId,
+            TrendingFixtures.config(),
+            { byBuild[it] },
+            StringBuilder()
+        )
+
+        Assert.assertTrue(updated)
+        val full = TrendingCalculator.calculate(
+            all.subList(0, 5), benchmark, benchmarkId, TrendingFixtures.config(), StringBuilder()
+        )
+        Assert.assertEquals(listOf(108, 107, 106, 105, 104), state.buildNos)
+        Assert.assertEquals(Gson().toJson(full), Gson().toJson(state.model))
+    }
+
+    @Test
+    fun incrementalUpdatePreviousBenchmark() {
+        assertIncrementalSameAsFull(null)
+    }
+
+    @Test
+    fun incrementalUpdateFixedBenchmark() {
+        assertIncrementalSameAsFull(1)
+    }
+
+    @Test
+    fun recalculateWhenThresholdsChange() {
+        val all = history(3)
+        val state = TrendingCalculator.calculateState(
+            all.subList(1, 3), all.last().data, null, TrendingFixtures.config(), StringBuilder()
+        )
+        val config = TrendingConfiguration(5, 0, 5, 5, 10, 20, 5, 10, true)
+
+        val updated = TrendingCalculator.update(
+            state, all.map { it.buildNo }, all.subList(0, 1), all.last().data, null, config, { null }, StringBuilder()
+        )
+
+        Assert.assertFalse(updated)
+        Assert.assertEquals(2, state.buildNos.size)
+    }
+
+    @Test
+    fun parallelSameAsSequential() {
+        val runs = TrendingFixtures.runs(5, 500)
+        val sequentialLogs = StringBuilder()
+        val parallelLogs = StringBuilder()
+        val sequentialPool = ForkJoinPool(1)
+        val pool = ForkJoinPool(4)
+        try {
+            val sequential = TrendingCalculator.calculate(
+                runs, runs[0].data, null, TrendingFixtures.config(), sequentialLogs, sequentialPool
+            )
+            val parallel = TrendingCalculator.calculate(
+                runs, runs[0].data, null, TrendingFixtures.config(), parallelLogs, pool
+            )
+
+            Assert.assertEquals(500, parallel.trt.size)
+            Assert.assertEquals(Gson().toJson(sequential), Gson().toJson(parallel))
+            Assert.assertEquals(sequentialLogs.toString(), parallelLogs.toString())
+        } finally {
+            sequentialPool.shutdown()
+            pool.shutdown()
+        }
+    }
+
+    @Test
+    fun latestAddedOnAgent() {
+        val all = history(6)
+        val previous = all.subList(1, 6)
+        val state = TrendingCalculator.calculateState(
+            previous, previous[0].data, null, TrendingFixtures.config(), StringBuilder()
+        )
+        val kept = previous.subList(0, 4)
+        val update = TrendingUpdate(
+            state,
+            ArrayList(state.buildNos),
+            listOf(106) + kept.map { it.buildNo },
+            106,
+            "",
+            kept.associateTo(HashMap()) { it.buildNo to it.data }
+        )
+
+        // the update goes to the agent and the state comes back through remoting
+        val bytes = ByteArrayOutputStream()
+        ObjectOutputStream(bytes).use { it.writeObject(update) }
+        val sent = ObjectInputStream(ByteArrayInputStream(bytes.toByteArray())).use {
+            it.readObject() as TrendingUpdate
+        }
+        val computed = TrendingCalculator.addLatest(sent, historyWrapper(6), TrendingFixtures.config(), StringBuilder())
+
+        Assert.assertNotNull(computed)
+        val full = TrendingCalculator.calculate(
+            all.subList(0, 5), all[0].data, null, TrendingFixtures.config(), StringBuilder()
+        )
+        Assert.assertEquals(listOf(106, 105, 104, 103, 102), computed!!.buildNos)
+        Assert.assertEquals(Gson().toJson(full), Gson().toJson(computed.model))
+        // the sent state is left for the controller to check against the saved one
+        Assert.assertEquals(listOf(105, 104, 103, 102, 101), sent.basedOn)
+    }
+}
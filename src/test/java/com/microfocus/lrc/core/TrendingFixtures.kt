@@ -0,0 +1,75 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.core
+
+import com.microfocus.lrc.core.entity.*
+
+/**
+ * generated trending data for tests and benchmarks.
+ */
+object TrendingFixtures {
+    const val TEST_ID = 2238
+
+    @JvmStatic
+    fun config(): TrendingConfiguration {
+        return TrendingConfiguration(5, 0, 5, 5, 10, 5, 5, 10, true)
+    }
+
+    @JvmStatic
+    fun tx(name: String, script: String, avg: Float, percentile: Float): TestRunTransactionsResponse {
+        return TestRunTransactionsResponse(
+            name, 1, script, avg / 2, avg * 2, avg, percentile, 0F, "N/A", 0, 0F, 10, 0, 0F
+        )
+    }
+
+    @JvmStatic
+    @JvmOverloads
+    fun wrapper(
+        runId: Int,
+        transactions: Array<TestRunTransactionsResponse>,
+        benchmark: TrendingDataWrapper?,
+        testId: Int = TEST_ID
+    ): TrendingDataWrapper {
+        val loadTest = LoadTest(testId, 2)
+        loadTest.name = "trending"
+        val results = TestRunResultsResponse(
+            "PASSED", "00:10:00", 90, 10, "1 KB/s", "600 KB", "5 hits/s", 3000, 1000, 10, 0
+        )
+        return TrendingDataWrapper(LoadTestRun(runId, loadTest), results, transactions, "TENANT", benchmark)
+    }
+
+    /**
+     * wrappers of [runs] runs with [transactions] transactions each, latest first.
+     * the TRT of each run grows by 1% over the previous one.
+     */
+    @JvmStatic
+    fun wrappers(runs: Int, transactions: Int): List<TrendingDataWrapper> {
+        return (runs downTo 1).map { runId ->
+            val txArr = Array(transactions) { i ->
+                val avg = (1 + i % 10) * (1 + runId / 100F)
+                tx("tx_$i", "script_${i % 7}", avg, avg * 1.5F)
+            }
+            wrapper(runId, txArr, null)
+        }
+    }
+
+    /**
+     * [runs] runs with [transactions] transactions each, latest first, see [wrappers].
+     */
+    @JvmStatic
+    fun runs(runs: Int, transactions: Int): List<TrendingRun> {
+        return wrappers(runs, transactions).map { w ->
+            TrendingRun(w.trendingData.runId, "2022.06.22 12:54:00", w.trendingData)
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.core
+
+import com.microfocus.lrc.core.entity.LoadTest
+import com.microfocus.lrc.core.entity.LoadTestRun
+import com.microfocus.lrc.core.entity.TestRunStatus
+import com.microfocus.lrc.core.entity.TestRunTransactionsResponse
+import org.junit.Assert
+import org.junit.Test
+import java.io.ByteArrayInputStream
+import javax.xml.parsers.DocumentBuilderFactory
+
+class XmlReportTest {
+
+    private fun tx(name: String, slaStatus: String): TestRunTransactionsResponse {
+        return TestRunTransactionsResponse(
+            name,
+            -1,
+            "TC_peacefull_12.56_FF_20_pacing",
+            0.44700024F,
+            0.59299994F,
+            0.50877136F,
+            0.58499986F,
+            0.0F,
+            slaStatus,
+            3,
+            0.11051371F,
+            90,
+            0,
+            -0.013767751F
+        )
+    }
+
+    @Test
+    fun writeOneTestcasePerTransaction() {
+        val lt = LoadTest(113, 1)
+        lt.name = "TEST for TFS"
+        val testRun = LoadTestRun(781, lt)
+        testRun.statusEnum = TestRunStatus.PASSED
+
+        val content = XmlReport.write(
+            testRun,
+            "http://report",
+            "http://dashboard",
+            arrayOf(tx("Peacefull_FF", "Passed"), tx("Login & <Logout>", "Failed"))
+        )
+
+        val doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(ByteArrayInputStream(content))
+        val suite = doc.documentElement
+        Assert.assertEquals("testsuite", suite.tagName)
+        Assert.assertEquals("3", suite.getAttribute("tests"))
+        Assert.assertEquals("1", suite.getAttribute("failures"))
+
+        val testcases = doc.getElementsByTagName("testcase")
+        Assert.assertEquals(3, testcases.length)
+        val failed = testcases.item(2) as org.w3c.dom.Element
+        Assert.assertEquals("Login & <Logout>", failed.getAttribute("name"))
+        Assert.assertEquals("Failed", failed.getAttribute("slaStatus"))
+        Assert.assertEquals(1, failed.getElementsByTagName("failure").length)
+    }
+
+    @Test
+    fun writeWithoutTransactions() {
+        val lt = LoadTest(113, 1)
+        val testRun = LoadTestRun(781, lt)
+        testRun.statusEnum = TestRunStatus.FAILED
+
+        val content = XmlReport.write(testRun, "http://report", "http://dashboard")
+
+        val doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(ByteArrayInputStream(content))
+        Assert.assertEquals("1", doc.documentElement.getAttribute("tests"))
+        Assert.assertEquals("1", doc.documentElement.getAttribute("failures"))
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.microfocus.lrc.core.entity
+
+import org.junit.Assert
+import org.junit.Test
+
+class TransactionColumnsTest {
+    private fun columns(): TransactionColumns {
+        val columns = TransactionColumns(1)
+        columns.add("login", "script", 0.5, 3.0, 1.25, 2.5, 0.0, 3.0, 10, 1)
+        columns.add("logout", "script", 0.1, 0.9, 0.5, 0.75, 0.0, 1.0, 11, 0)
+        columns.add(null, null, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0, 0)
+        return columns
+    }
+
+    private fun assertSame(expected: TransactionColumns, actual: TransactionColumns) {
+        Assert.assertEquals(expected.size(), actual.size())
+        for (i in 0 until expected.size()) {
+            val e = expected.get(i)
+            val a = actual.get(i)
+            Assert.assertEquals(e.name, a.name)
+            Assert.assertEquals(e.script, a.script)
+            Assert.assertEquals(e.min, a.min, 0.0)
+            Assert.assertEquals(e.max, a.max, 0.0)
+            Assert.assertEquals(e.avg, a.avg, 0.0)
+            Assert.assertEquals(e.nintieth, a.nintieth, 0.0)
+            Assert.assertEquals(e.thresholds, a.thresholds, 0.0)
+            Assert.assertEquals(e.passed, a.passed, 0.0)
+            Assert.assertEquals(e.failed, a.failed, 0.0)
+        }
+    }
+
+    @Test
+    fun bytesRoundTrip() {
+        val columns = columns()
+        val read = TransactionColumns.fromBytes(columns.toBytes())
+        assertSame(columns, read)
+        Assert.assertEquals("logout", read.asList()[1].name)
+        Assert.assertEquals(11, read.getPassed(1))
+    }
+
+    @Test
+    fun fromLegacyList() {
+        val columns = columns()
+        assertSame(columns, TransactionColumns.of(ArrayList(columns.asList())))
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.microfocus.lrc.jenkins;
+
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.Page;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.*;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+
+import java.io.IOException;
+import java.net.URL;
+
+public class PdfReportActionTest {
+    private static final MockWebServer mockserver = new MockWebServer();
+    private static final ReportServerDispatcher server = new ReportServerDispatcher();
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        mockserver.setDispatcher(server);
+        mockserver.start();
+    }
+
+    @AfterClass
+    public static void tearDown() throws IOException {
+        mockserver.shutdown();
+    }
+
+    @Before
+    public void resetServer() {
+        server.reset();
+    }
+
+    @Test
+    public void testGenerateOnPost() throws Exception {
+        FreeStyleBuild build = this.buildWithReport();
+        PdfReportAction action = build.getAction(PdfReportAction.class);
+
+        try (JenkinsRule.WebClient wc = this.createWebClient()) {
+            // opening the page doesn't start generating
+            Assert.assertTrue(this.getReportPage(wc, build).contains("has not been generated yet"));
+            Page get = wc.goTo(build.getUrl() + "lrc_pdf_report/generate", null);
+            Assert.assertEquals(405, get.getWebResponse().getStatusCode());
+            Assert.assertEquals(0, server.reportRequests.get());
+
+            // not ready
+            String page = this.postGenerate(wc, build);
+            Assert.assertTrue(page, page.contains("is being generated"));
+            Assert.assertFalse(action.getReport().exists());
+
+            // ready
+            server.reportReady.set(true);
+            this.waitForPage(wc, build, ReportServerDispatcher.REPORT_CONTENT);
+            Assert.assertTrue(action.getReport().isFile());
+            Assert.assertEquals(1, server.reportRequests.get());
+        }
+    }
+
+    @Test
+    public void testGenerateFailed() throws Exception {
+        FreeStyleBuild build = this.buildWithReport();
+        PdfReportAction action = build.getAction(PdfReportAction.class);
+
+        try (JenkinsRule.WebClient wc = this.createWebClient()) {
+            server.requestFails.set(true);
+            this.postGenerate(wc, build);
+            String page = this.waitForPage(wc, build, "Failed to generate PDF report");
+            Assert.assertTrue(page, page.contains("FAKE_ERROR"));
+            Assert.assertTrue(page, page.contains("Retry"));
+            Assert.assertFalse(action.getReport().exists());
+
+            // failures are not retried until asked to
+            Assert.assertEquals(1, server.reportRequests.get());
+            this.getReportPage(wc, build);
+            Assert.assertEquals(1, server.reportRequests.get());
+
+            server.requestFails.set(false);
+            server.reportReady.set(true);
+            this.postGenerate(wc, build);
+            this.waitForPage(wc, build, ReportServerDispatcher.REPORT_CONTENT);
+            Assert.assertTrue(action.getReport().isFile());
+            Assert.assertEquals(2, server.reportRequests.get());
+        }
+    }
+
+    private FreeStyleBuild buildWithReport() throws Exception {
+        ReportServerDispatcher.configure(jenkins, mockserver);
+
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        project.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(
+                    final AbstractBuild<?, ?> build,
+                    final Launcher launcher,
+                    final BuildListener listener
+            ) {
+                build.replaceAction(new PdfReportAction(build, "FAKE_TENANT_ID", 1, 99));
+                return true;
+            }
+        });
+        return jenkins.buildAndAssertSuccess(project);
+    }
+
+    private JenkinsRule.WebClient createWebClient() {
+        JenkinsRule.WebClient wc = jenkins.createWebClient();
+        wc.setThrowExceptionOnFailingStatusCode(false);
+        // the status page refreshes itself, let the test decide when to reload it
+        wc.setRefreshHandler((page, url, seconds) -> { });
+        return wc;
+    }
+
+    private String getReportPage(final JenkinsRule.WebClient wc, final FreeStyleBuild build) throws Exception {
+        return wc.goTo(build.getUrl() + "lrc_pdf_report/", null).getWebResponse().getContentAsString();
+    }
+
+    private String postGenerate(final JenkinsRule.WebClient wc, final FreeStyleBuild build) throws Exception {
+        WebRequest request = new WebRequest(
+                new URL(jenkins.getURL(), build.getUrl() + "lrc_pdf_report/generate"),
+                HttpMethod.POST
+        );
+        Page page = wc.getPage(wc.addCrumb(request));
+        return page.getWebResponse().getContentAsString();
+    }
+
+    private String waitForPage(
+            final JenkinsRule.WebClient wc,
+            final FreeStyleBuild build,
+            final String expected
+    ) throws Exception {
+        String page = "";
+        for (int i = 0; i < 300 && !page.contains(expected); i++) {
+            Thread.sleep(100);
+            page = this.getReportPage(wc, build);
+        }
+        Assert.assertTrue(page, page.contains(expected));
+        return page;
+    }
+}
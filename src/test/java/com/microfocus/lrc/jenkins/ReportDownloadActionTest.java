@@ -0,0 +1,127 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.microfocus.lrc.jenkins;
+
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import okhttp3.mockwebserver.MockWebServer;
+import org.apache.commons.io.IOUtils;
+import org.junit.*;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class ReportDownloadActionTest {
+    private static final MockWebServer mockserver = new MockWebServer();
+    private static final ReportServerDispatcher server = new ReportServerDispatcher();
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        mockserver.setDispatcher(server);
+        mockserver.start();
+    }
+
+    @AfterClass
+    public static void tearDown() throws IOException {
+        mockserver.shutdown();
+    }
+
+    @Before
+    public void resetServer() {
+        server.reset();
+    }
+
+    @Test
+    public void testDownloadToArtifacts() throws Exception {
+        server.reportReady.set(true);
+        FreeStyleBuild build = this.buildWithDownload();
+        ReportDownloadAction action = this.waitForDownload(build);
+
+        Assert.assertEquals(ReportDownloadAction.Status.COMPLETED, action.getStatus());
+        Assert.assertNull(action.getMessage());
+        String csv = "lrc_report_FAKE_TENANT_ID-99.csv";
+        String pdf = "lrc_report_FAKE_TENANT_ID-99.pdf";
+        Assert.assertEquals(Arrays.asList(csv, pdf), action.getFiles());
+        for (String fileName : action.getFiles()) {
+            try (InputStream stream = build.getArtifactManager().root().child(fileName).open()) {
+                Assert.assertEquals(
+                        ReportServerDispatcher.REPORT_CONTENT,
+                        IOUtils.toString(stream, StandardCharsets.UTF_8)
+                );
+            }
+        }
+        Assert.assertEquals(2, build.getArtifacts().size());
+    }
+
+    @Test
+    public void testDownloadFailed() throws Exception {
+        server.requestFails.set(true);
+        FreeStyleBuild build = this.buildWithDownload();
+        ReportDownloadAction action = this.waitForDownload(build);
+
+        Assert.assertEquals(ReportDownloadAction.Status.FAILED, action.getStatus());
+        Assert.assertTrue(action.getMessage(), action.getMessage().contains("FAKE_ERROR"));
+        Assert.assertTrue(action.getFiles().isEmpty());
+        Assert.assertTrue(build.getArtifacts().isEmpty());
+        Assert.assertEquals("icon-error", action.getBadgeIcon());
+    }
+
+    private FreeStyleBuild buildWithDownload() throws Exception {
+        ReportServerDispatcher.configure(jenkins, mockserver);
+
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        project.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(
+                    final AbstractBuild<?, ?> build,
+                    final Launcher launcher,
+                    final BuildListener listener
+            ) {
+                ReportDownloadAction action = new ReportDownloadAction(
+                        build,
+                        "FAKE_TENANT_ID",
+                        1,
+                        99,
+                        Arrays.asList("csv", "pdf")
+                );
+                build.replaceAction(action);
+                action.start();
+                return true;
+            }
+        });
+        return jenkins.buildAndAssertSuccess(project);
+    }
+
+    private ReportDownloadAction waitForDownload(final FreeStyleBuild build) throws InterruptedException {
+        ReportDownloadAction action = build.getAction(ReportDownloadAction.class);
+        for (int i = 0; i < 300; i++) {
+            ReportDownloadAction.Status status = action.getStatus();
+            if (status == ReportDownloadAction.Status.COMPLETED || status == ReportDownloadAction.Status.FAILED) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+        return action;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.microfocus.lrc.jenkins;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * mock LoadRunner Cloud answering the login and report requests, routed by path
+ * since reports are requested by background tasks.
+ */
+class ReportServerDispatcher extends Dispatcher {
+    static final String REPORT_CONTENT = "FAKE_REPORT_CONTENT";
+
+    final AtomicBoolean reportReady = new AtomicBoolean();
+    final AtomicBoolean requestFails = new AtomicBoolean();
+    final AtomicInteger reportRequests = new AtomicInteger();
+
+    @Override
+    public MockResponse dispatch(final RecordedRequest request) {
+        String path = request.getPath() != null ? request.getPath() : "";
+        if (path.contains("/auth")) {
+            return new MockResponse().setBody("{\"token\":\"fake_token\"}");
+        }
+        if (path.contains("/projects")) {
+            return new MockResponse().setBody("[]");
+        }
+        if (path.contains("/test-runs/reports/")) {
+            if (this.reportReady.get()) {
+                return new MockResponse()
+                        .setHeader("Content-Type", "application/octet-stream")
+                        .setBody(REPORT_CONTENT);
+            }
+            return new MockResponse()
+                    .setHeader("Content-Type", "application/json")
+                    .setBody("{\"message\":\"In progress\"}");
+        }
+        if (path.contains("/reports")) {
+            this.reportRequests.incrementAndGet();
+            if (this.requestFails.get()) {
+                return new MockResponse().setResponseCode(500).setBody("FAKE_ERROR");
+            }
+            return new MockResponse().setBody("{\"reportId\":7}");
+        }
+        return new MockResponse().setResponseCode(404);
+    }
+
+    void reset() {
+        this.reportReady.set(false);
+        this.requestFails.set(false);
+        this.reportRequests.set(0);
+    }
+
+    static void configure(final JenkinsRule jenkins, final MockWebServer server) {
+        TestRunBuilder.DescriptorImpl descriptor = jenkins.get(TestRunBuilder.DescriptorImpl.class);
+        descriptor.setUrl(server.url("/").toString());
+        descriptor.setClientId("FAKE_CLIENT_ID");
+        descriptor.setClientSecret("FAKE_CLIENT_SECRET");
+        descriptor.setTenantId("FAKE_TENANT_ID");
+        descriptor.setUseOAuth(true);
+        descriptor.save();
+    }
+}
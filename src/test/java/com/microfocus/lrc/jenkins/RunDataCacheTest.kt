@@ -0,0 +1,58 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.jenkins
+
+import com.microfocus.lrc.core.entity.TestRunData
+import com.microfocus.lrc.core.entity.TestRunResultsResponse
+import com.microfocus.lrc.core.entity.TestRunTransactionsResponse
+import org.junit.Assert
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+class RunDataCacheTest {
+    @get:Rule
+    var tmp = TemporaryFolder()
+
+    private fun tx(name: String): TestRunTransactionsResponse {
+        return TestRunTransactionsResponse(
+            name, -1, "script", 0.1F, 0.3F, 0.2F, 0.25F, 0.0F, "N/A", 3, 0.01F, 10, 0, 0.0F
+        )
+    }
+
+    @Test
+    fun putMergeAndGet() {
+        val cache = RunDataCache(tmp.root, 1024 * 1024)
+        cache.put(TestRunData("FAKE_TENANT_ID", 1, null, arrayOf(tx("a"))))
+        Assert.assertNull(cache.get("FAKE_TENANT_ID", 1)!!.results)
+
+        cache.put(TestRunData("FAKE_TENANT_ID", 1, TestRunResultsResponse(), null))
+        val cached = cache.get("FAKE_TENANT_ID", 1)!!
+        Assert.assertTrue(cached.isComplete())
+        Assert.assertEquals("a", cached.transactions!![0].name)
+        Assert.assertNull(cache.get("OTHER_TENANT", 1))
+
+        // index is rebuilt from disk
+        Assert.assertNotNull(RunDataCache(tmp.root, 1024 * 1024).get("FAKE_TENANT_ID", 1))
+    }
+
+    @Test
+    fun evictLeastRecentlyUsed() {
+        val cache = RunDataCache(tmp.root, 1)
+        cache.put(TestRunData("FAKE_TENANT_ID", 1, null, arrayOf(tx("a"))))
+        cache.put(TestRunData("FAKE_TENANT_ID", 2, null, arrayOf(tx("b"))))
+
+        Assert.assertNull(cache.get("FAKE_TENANT_ID", 1))
+        Assert.assertNotNull(cache.get("FAKE_TENANT_ID", 2))
+    }
+}
@@ -24,15 +24,24 @@ import hudson.EnvVars;
 import hudson.FilePath;
 import hudson.Launcher;
 import hudson.model.*;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.QueueDispatcher;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
 import org.junit.*;
 import org.jvnet.hudson.test.JenkinsRule;
 import org.jvnet.hudson.test.TestBuilder;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TestRunBuilderTest {
     public static MockWebServer mockserver = new MockWebServer();
@@ -294,6 +303,12 @@ public class TestRunBuilderTest {
                     Assert.assertEquals("-1", runId);
                     listener.getLogger().println("got LRC_RUN_ID: " + runId);
                     Assert.assertEquals("BAR", EnvVarsUtil.getEnvVar(build, launcher, "FOO"));
+                    Map<String, String> snapshot = EnvVarsUtil.snapshot(
+                            build, launcher, Arrays.asList("LRC_RUN_ID", "FOO", "LRC_NOT_DEFINED")
+                    );
+                    Assert.assertEquals("-1", snapshot.get("LRC_RUN_ID"));
+                    Assert.assertEquals("BAR", snapshot.get("FOO"));
+                    Assert.assertFalse(snapshot.containsKey("LRC_NOT_DEFINED"));
                     return true;
                 }
             });
@@ -343,6 +358,70 @@ public class TestRunBuilderTest {
             Assert.assertTrue(workspace.child("lrc_report_FAKE_TENANT_ID--1.pdf").exists());
             Assert.assertTrue(workspace.child("lrc_report_FAKE_TENANT_ID--1.csv").exists());
             Assert.assertTrue(workspace.child("lrc_report_trans_FAKE_TENANT_ID--1.csv").exists());
+
+            // no trending report in the build, the run data is not fetched nor kept
+            Assert.assertNull(b.getAction(TestRunDataAction.class));
+        }
+    }
+
+    @Test
+    public void testPipelineReusesRunData() throws Exception {
+        EnvVars.masterEnvVars.put(OptionInEnvVars.LRC_DEBUG_LOG.name(), "false");
+        EnvVars.masterEnvVars.put(OptionInEnvVars.LRC_TEST_MODE.name(), "true");
+
+        WorkflowJob job = jenkins.createProject(WorkflowJob.class, "pipeline");
+        job.setDefinition(new CpsFlowDefinition(
+                "node {\n"
+                        + "  lrcRunTest projectId: '99', testId: '999', sendEmail: false\n"
+                        + "  lrcGenTrendingReport()\n"
+                        + "}",
+                true
+        ));
+        TestRunBuilder.DescriptorImpl descriptor = jenkins.get(TestRunBuilder.DescriptorImpl.class);
+        descriptor.setUrl(mockserver.url("/").toString());
+        descriptor.setClientId("FAKE_CLIENT_ID");
+        descriptor.setClientSecret("FAKE_CLIENT_SECRET");
+        descriptor.setTenantId("FAKE_TENANT_ID");
+        descriptor.setUseOAuth(true);
+        descriptor.save();
+
+        this.mockResponseNormal();
+
+        // results are only fetched to be kept for the trending report, everything else is served in order.
+        // a publisher fetching again would get 404 from the empty queue and fail the build.
+        QueueDispatcher queueDispatcher = (QueueDispatcher) mockserver.getDispatcher();
+        queueDispatcher.setFailFast(true);
+        AtomicInteger resultsRequests = new AtomicInteger();
+        AtomicInteger transactionsRequests = new AtomicInteger();
+        mockserver.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(final RecordedRequest request) throws InterruptedException {
+                String path = request.getPath() == null ? "" : request.getPath();
+                if (path.contains("/results")) {
+                    resultsRequests.incrementAndGet();
+                    return MockServerResponseGenerator.testRunResultsResponse();
+                }
+                if (path.contains("/transactions")) {
+                    transactionsRequests.incrementAndGet();
+                }
+                return queueDispatcher.dispatch(request);
+            }
+        });
+
+        try {
+            WorkflowRun b = jenkins.buildAndAssertSuccess(job);
+            jenkins.assertLogContains("Reusing the results and transactions of run #-1", b);
+            Assert.assertEquals(1, resultsRequests.get());
+            Assert.assertEquals(1, transactionsRequests.get());
+
+            TestRunReportBuildAction action = b.getAction(TestRunReportBuildAction.class);
+            Assert.assertNotNull(action);
+            Assert.assertTrue(action.hasTrendingData());
+            // used by the publisher, nothing is left with the build
+            Assert.assertNull(b.getAction(TestRunDataAction.class));
+        } finally {
+            queueDispatcher.setFailFast(false);
+            mockserver.setDispatcher(queueDispatcher);
         }
     }
 }
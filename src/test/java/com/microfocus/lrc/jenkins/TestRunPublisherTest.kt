@@ -12,15 +12,17 @@
 
 package com.microfocus.lrc.jenkins
 
-import com.google.gson.Gson
-import com.google.gson.JsonObject
 import com.microfocus.lrc.MockServerResponseGenerator
 import com.microfocus.lrc.core.entity.*
 import hudson.EnvVars
 import hudson.Launcher
 import hudson.model.AbstractBuild
 import hudson.model.BuildListener
+import jenkins.model.Jenkins
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
 import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
 import org.junit.*
 import org.jvnet.hudson.test.JenkinsRule
 import org.jvnet.hudson.test.TestBuilder
@@ -102,21 +104,12 @@ class TestRunPublisherTest {
         // create a mock "buildResult" for publisher to consume.
         project.buildersList.add(object : TestBuilder() {
             override fun perform(build: AbstractBuild<*, *>, launcher: Launcher, listener: BuildListener): Boolean {
-                val buildResultObj = JsonObject()
-
                 val lt = LoadTest(-1, 99)
                 val testRun = LoadTestRun(-1, lt)
                 testRun.statusEnum = TestRunStatus.PASSED
 
                 val opt = TestRunOptions(lt.id, false)
-
-                buildResultObj.addProperty("testRun", Gson().toJson(testRun))
-                buildResultObj.addProperty("testOptions", Gson().toJson(opt))
-
-                build.workspace!!.child("lrc_run_result_${build.id}").write(
-                    buildResultObj.toString(),
-                    Charsets.UTF_8.name()
-                )
+                build.replaceAction(TestRunResultAction(opt, testRun))
 
                 return true
             }
@@ -124,12 +117,65 @@ class TestRunPublisherTest {
         })
 
         MockServerResponseGenerator.mockLogin()
-        MockServerResponseGenerator.mockTestRunResults()
-        MockServerResponseGenerator.mockTransactions()
 
-        val build = jenkins.buildAndAssertSuccess(project)
-        val action = build.getAction(TestRunReportBuildAction::class.java)
-        assert(action != null)
-        println(action.trendingDataWrapper.tenantId)
+        // results and transactions are fetched concurrently, route them by path instead of by order
+        val server = TestRunBuilderTest.mockserver
+        val queueDispatcher = server.dispatcher
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                val path = request.path ?: ""
+                return when {
+                    path.contains("/results") -> MockServerResponseGenerator.testRunResultsResponse()
+                    path.contains("/transactions") -> MockServerResponseGenerator.transactionsResponse()
+                    else -> queueDispatcher.dispatch(request)
+                }
+            }
+        }
+
+        try {
+            val build = jenkins.buildAndAssertSuccess(project)
+            val action = build.getAction(TestRunReportBuildAction::class.java)
+            assert(action != null)
+            println(action.trendingDataWrapper.tenantId)
+
+            // only the summary is kept in build.xml, the transactions are loaded from their own file
+            Assert.assertTrue(action.hasTrendingData())
+            Assert.assertEquals(action.trendingDataWrapper.trendingData.runId, action.summary.runId)
+            Assert.assertTrue(java.io.File(build.rootDir, TestRunReportBuildAction.TRENDING_DATA_FILE).exists())
+            Assert.assertFalse(java.io.File(build.rootDir, "build.xml").readText().contains("trendingDataWrapper"))
+
+            // the report data is kept beside build.xml, not in it
+            Assert.assertNotNull(action.trendingReportData)
+            Assert.assertTrue(java.io.File(build.rootDir, TestRunReportBuildAction.REPORT_DATA_FILE).exists())
+            Assert.assertFalse(java.io.File(build.rootDir, "build.xml").readText().contains("trendingReportData"))
+
+            // the report data is revalidated with its ETag
+            val wc = jenkins.createWebClient()
+            val dataURL = java.net.URL(jenkins.url, "${project.url}lrc_report/data")
+            val first = wc.loadWebResponse(com.gargoylesoftware.htmlunit.WebRequest(dataURL))
+            Assert.assertEquals(200, first.statusCode)
+            val eTag = first.getResponseHeaderValue("ETag")
+            Assert.assertNotNull(eTag)
+            val request = com.gargoylesoftware.htmlunit.WebRequest(dataURL)
+            request.setAdditionalHeader("If-None-Match", eTag)
+            Assert.assertEquals(304, wc.loadWebResponse(request).statusCode)
+
+            // the assets of the report page are loaded under the context path of Jenkins
+            val page = wc.loadWebResponse(
+                com.gargoylesoftware.htmlunit.WebRequest(java.net.URL(jenkins.url, "${project.url}lrc_report/"))
+            )
+            Assert.assertEquals(200, page.statusCode)
+            Assert.assertTrue(page.contentAsString.contains(
+                "\"${jenkins.contextPath}${Jenkins.RESOURCE_PATH}/plugin/loadrunner-cloud/trending_report/"
+            ))
+
+            // the latest trending build is tracked per job
+            Assert.assertTrue(LatestTrendingBuild.exists(project))
+            Assert.assertSame(action, TestRunReportBuildAction.getLastBuildActionHasTrendingData(project))
+            build.delete()
+            Assert.assertFalse(LatestTrendingBuild.exists(project))
+        } finally {
+            server.dispatcher = queueDispatcher
+        }
     }
 }
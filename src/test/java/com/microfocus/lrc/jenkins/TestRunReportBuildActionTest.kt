@@ -0,0 +1,162 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.microfocus.lrc.jenkins
+
+import com.microfocus.lrc.core.TrendingFixtures
+import hudson.Launcher
+import hudson.diagnosis.OldDataMonitor
+import hudson.model.AbstractBuild
+import hudson.model.BuildListener
+import hudson.model.FreeStyleProject
+import org.junit.Assert
+import org.junit.Rule
+import org.junit.Test
+import org.jvnet.hudson.test.JenkinsRule
+import org.jvnet.hudson.test.TestBuilder
+import org.jvnet.hudson.test.recipes.LocalData
+import java.io.File
+
+class TestRunReportBuildActionTest {
+    @get:Rule
+    var jenkins = JenkinsRule()
+
+    private fun legacyProject(): FreeStyleProject {
+        return jenkins.jenkins.getItemByFullName("legacy", FreeStyleProject::class.java)!!
+    }
+
+    private fun addTrendingBuilder(project: FreeStyleProject) {
+        project.buildersList.add(object : TestBuilder() {
+            override fun perform(build: AbstractBuild<*, *>, launcher: Launcher, listener: BuildListener): Boolean {
+                val tx = arrayOf(TrendingFixtures.tx("login", "script", 1F, 1.5F))
+                build.replaceAction(TestRunReportBuildAction(
+                    build,
+                    TrendingFixtures.wrapper(100 + build.number, tx, null),
+                    TrendingFixtures.config()
+                ))
+                return true
+            }
+        })
+    }
+
+    @Test
+    @LocalData
+    fun loadLegacyBuildXml() {
+        val project = legacyProject()
+        val build = TrendingTasks.hold {
+            val build = project.getBuildByNumber(1)!!
+            // the transactions saved as inner classes by older versions are read without unknown fields
+            Assert.assertTrue(OldDataMonitor.get(jenkins.jenkins).data.keys.none { it === build })
+            build
+        }
+        val action = build.getAction(TestRunReportBuildAction::class.java)
+        Assert.assertEquals(101, action.summary.runId)
+
+        TrendingTasks.await()
+        val buildXml = File(build.rootDir, "build.xml").readText()
+        Assert.assertTrue(File(build.rootDir, TestRunReportBuildAction.TRENDING_DATA_FILE).exists())
+        Assert.assertFalse(buildXml.contains("trendingDataWrapper"))
+        Assert.assertFalse(buildXml.contains("LEGACY_REPORT_HTML"))
+        val transactions = action.trendingDataWrapper.trendingData.transactions
+        Assert.assertEquals(listOf("login", "logout"), transactions.map { it.name })
+        Assert.assertEquals(1.5, transactions[0].nintieth, 0.0)
+        Assert.assertEquals(2.0, transactions[1].failed, 0.0)
+        // the job is found by loading the build, it has no publisher
+        Assert.assertEquals(1, LatestTrendingBuild.number(project))
+
+        // read again from the migrated build
+        build.reload()
+        val reloaded = build.getAction(TestRunReportBuildAction::class.java)
+        Assert.assertEquals(listOf("login", "logout"), reloaded.trendingDataWrapper.trendingData.transactions.map { it.name })
+        Assert.assertTrue(OldDataMonitor.get(jenkins.jenkins).data.keys.none { it === build })
+    }
+
+    @Test
+    @LocalData
+    fun migrateLegacyReportData() {
+        val build = TrendingTasks.hold {
+            val build = legacyProject().getBuildByNumber(1)!!
+            // readable before it's migrated
+            Assert.assertEquals(LEGACY_REPORT_DATA, build.getAction(TestRunReportBuildAction::class.java).trendingReportData)
+            build
+        }
+        val buildXml = File(build.rootDir, "build.xml")
+        val reportFile = File(build.rootDir, TestRunReportBuildAction.REPORT_DATA_FILE)
+
+        TrendingTasks.await()
+        Assert.assertTrue(reportFile.exists())
+        Assert.assertFalse(buildXml.readText().contains("trendingReportData"))
+        Assert.assertEquals(LEGACY_REPORT_DATA, build.getAction(TestRunReportBuildAction::class.java).trendingReportData)
+        build.reload()
+        Assert.assertEquals(LEGACY_REPORT_DATA, build.getAction(TestRunReportBuildAction::class.java).trendingReportData)
+    }
+
+    @Test
+    @LocalData("loadLegacyBuildXml")
+    fun migrateStoreFromBuildDirectories() {
+        val project = legacyProject()
+        addTrendingBuilder(project)
+        val store = TrendingTasks.hold {
+            jenkins.buildAndAssertSuccess(project)
+            // the first build is still as saved by an older version, its trending data is in build.xml
+            File(project.rootDir, TrendingStore.DIR_NAME).deleteRecursively()
+            TrendingStore.evict(project.rootDir)
+            TrendingStore.of(project)
+        }
+        val first = project.getBuildByNumber(1)!!
+        val second = project.getBuildByNumber(2)!!
+
+        val latest = store.latest()!!
+        Assert.assertEquals(second.number, latest.buildNo)
+        Assert.assertEquals(second.timeInMillis, latest.buildTime)
+        Assert.assertEquals(102, store.read(latest).trendingData.runId)
+        val entries = store.sameTest(latest, 10)
+        Assert.assertEquals(listOf(second.number, first.number), entries.map { it.buildNo })
+        Assert.assertEquals(first.timeInMillis, entries[1].buildTime)
+        Assert.assertEquals(101, store.read(entries[1]).trendingData.runId)
+        TrendingTasks.await()
+    }
+
+    @Test
+    fun resolveLatestTrendingBuildOnce() {
+        val unrelated = jenkins.createFreeStyleProject()
+        jenkins.buildAndAssertSuccess(unrelated)
+        val project = jenkins.createFreeStyleProject()
+        addTrendingBuilder(project)
+        jenkins.buildAndAssertSuccess(project)
+        val second = jenkins.buildAndAssertSuccess(project)
+
+        // saved by an older version: no pointer, resolved in background from the store
+        val pointer = File(project.rootDir, TrendingStore.DIR_NAME + "/latest-build")
+        Assert.assertTrue(pointer.delete())
+        LatestTrendingBuild.evict(project.rootDir)
+        Assert.assertFalse(LatestTrendingBuild.exists(unrelated))
+        LatestTrendingBuild.number(project)
+        TrendingTasks.await()
+        Assert.assertEquals(second.number.toString(), pointer.readText())
+        Assert.assertEquals(second.number, LatestTrendingBuild.number(project))
+
+        // nothing is read nor created for a job not using the plugin
+        Assert.assertFalse(LatestTrendingBuild.exists(unrelated))
+        Assert.assertFalse(File(unrelated.rootDir, TrendingStore.DIR_NAME).exists())
+
+        // the previous build in the store takes over
+        second.delete()
+        Assert.assertEquals((second.number - 1).toString(), pointer.readText())
+        Assert.assertEquals(second.number - 1, LatestTrendingBuild.get(project)!!.run.number)
+    }
+
+    companion object {
+        private const val LEGACY_REPORT_DATA = "{\"data\":\"LEGACY_REPORT_DATA\"}"
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microfocus.lrc.jenkins
+
+import com.microfocus.lrc.core.TrendingFixtures
+import com.microfocus.lrc.core.entity.TrendingDataWrapper
+import org.junit.Assert
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+
+class TrendingStoreTest {
+    @get:Rule
+    var tmp = TemporaryFolder()
+
+    private fun wrapper(runId: Int, testId: Int): TrendingDataWrapper {
+        return TrendingFixtures.wrapper(
+            runId,
+            arrayOf(TrendingFixtures.tx("login", "script", runId.toFloat(), runId.toFloat())),
+            null,
+            testId
+        )
+    }
+
+    @Test
+    fun appendAndRead() {
+        val store = TrendingStore(tmp.root)
+        Assert.assertNull(store.latest())
+
+        store.append(1, 1000L, wrapper(101, 1))
+        store.append(2, 2000L, wrapper(102, 2))
+        store.append(3, 3000L, wrapper(103, 1))
+        store.append(4, 4000L, wrapper(104, 1))
+
+        val latest = store.latest()!!
+        Assert.assertEquals(4, latest.buildNo)
+        Assert.assertEquals(104, latest.runId)
+
+        val entries = store.sameTest(latest, 2)
+        Assert.assertEquals(listOf(4, 3), entries.map { it.buildNo })
+        val data = store.read(entries[1])
+        Assert.assertEquals(103, data.trendingData.runId)
+        Assert.assertEquals("login", data.trendingData.transactions[0].name)
+        Assert.assertEquals(3000L, entries[1].buildTime)
+
+        // index is rebuilt from disk
+        val reloaded = TrendingStore(tmp.root)
+        Assert.assertEquals(listOf(4, 3, 1), reloaded.sameTest(reloaded.latest()!!, 10).map { it.buildNo })
+        Assert.assertEquals(101, reloaded.read(reloaded.sameTest(reloaded.latest()!!, 10)[2]).trendingData.runId)
+    }
+
+    @Test
+    fun deleteBuilds() {
+        val store = TrendingStore(tmp.root)
+        store.append(1, 1000L, wrapper(101, 1))
+        store.append(2, 2000L, wrapper(102, 1))
+        store.delete(2)
+
+        Assert.assertEquals(1, store.latest()!!.buildNo)
+        Assert.assertEquals(1, TrendingStore(tmp.root).latest()!!.buildNo)
+
+        store.delete(1)
+        Assert.assertNull(TrendingStore(tmp.root).latest())
+    }
+
+    @Test
+    fun namesSharedInDictionary() {
+        val store = TrendingStore(tmp.root)
+        store.append(1, 1000L, wrapper(101, 1))
+        store.append(2, 2000L, wrapper(102, 1))
+        // only the new name is added to the dictionary
+        store.append(3, 3000L, TrendingFixtures.wrapper(
+            103,
+            arrayOf(
+                TrendingFixtures.tx("login", "script", 1f, 1f),
+                TrendingFixtures.tx("logout", "script", 2f, 2f)
+            ),
+            null,
+            1
+        ))
+
+        val reloaded = TrendingStore(tmp.root)
+        val entries = reloaded.sameTest(reloaded.latest()!!, 10)
+        Assert.assertEquals(listOf(3, 2, 1), entries.map { it.buildNo })
+        val latest = reloaded.read(entries[0]).trendingData.transactions
+        Assert.assertEquals(listOf("login", "logout"), latest.map { it.name })
+        Assert.assertEquals("script", latest[1].script)
+        Assert.assertEquals("login", reloaded.read(entries[2]).trendingData.transactions[0].name)
+    }
+
+    @Test
+    fun benchmarkStoredOnce() {
+        val benchmark = TrendingFixtures.wrapper(
+            100,
+            arrayOf(TrendingFixtures.tx("login", "script", 7f, 8f)),
+            null
+        )
+        val store = TrendingStore(tmp.root)
+        for (buildNo in 1..3) {
+            store.append(buildNo, buildNo * 1000L, TrendingFixtures.wrapper(
+                100 + buildNo,
+                arrayOf(TrendingFixtures.tx("login", "script", 1f, 1f)),
+                benchmark
+            ))
+        }
+        Assert.assertEquals(1, java.io.File(tmp.root, "benchmarks").listFiles()!!.size)
+
+        val reloaded = TrendingStore(tmp.root)
+        val entries = reloaded.sameTest(reloaded.latest()!!, 10)
+        for (entry in entries) {
+            val data = reloaded.read(entry)
+            Assert.assertEquals(100, data.benchmarkId)
+            Assert.assertEquals(100, data.benchmark.runId)
+            Assert.assertEquals(7.0, data.benchmark.transactions[0].avg, 0.0)
+        }
+        // resolved through the cache of the store
+        Assert.assertSame(reloaded.read(entries[0]).benchmark, reloaded.read(entries[1]).benchmark)
+    }
+
+    @Test
+    fun evictDeletedAndMovedJobs() {
+        val deletedJob = tmp.newFolder("deleted")
+        val deleted = TrendingStore.cached(File(deletedJob, TrendingStore.DIR_NAME))
+        val movedJob = tmp.newFolder("moved")
+        val moved = TrendingStore.cached(File(movedJob, TrendingStore.DIR_NAME))
+        val kept = TrendingStore.cached(File(tmp.newFolder("kept"), TrendingStore.DIR_NAME))
+
+        TrendingStore.evict(deletedJob)
+        Assert.assertNotSame(deleted, TrendingStore.cached(File(deletedJob, TrendingStore.DIR_NAME)))
+        Assert.assertSame(moved, TrendingStore.cached(File(movedJob, TrendingStore.DIR_NAME)))
+
+        Assert.assertTrue(movedJob.renameTo(File(tmp.root, "renamed")))
+        TrendingStore.evictMoved()
+        Assert.assertNotSame(moved, TrendingStore.cached(File(movedJob, TrendingStore.DIR_NAME)))
+        Assert.assertSame(kept, TrendingStore.cached(File(File(tmp.root, "kept"), TrendingStore.DIR_NAME)))
+    }
+}
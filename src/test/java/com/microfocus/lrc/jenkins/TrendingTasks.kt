@@ -0,0 +1,62 @@
+/*
+ * © Copyright 2022 Micro Focus or one of its affiliates.
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.microfocus.lrc.jenkins
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+
+/**
+ * synchronization with the background tasks of [BackgroundTasks.trending] in tests.
+ */
+object TrendingTasks {
+    private const val TIMEOUT_SECONDS = 60L
+
+    private fun executor(): ThreadPoolExecutor {
+        return BackgroundTasks.trending() as ThreadPoolExecutor
+    }
+
+    /**
+     * wait until the tasks submitted so far are done: they are once every thread of the executor
+     * runs one of the tasks submitted here.
+     */
+    @JvmStatic
+    fun await() {
+        val threads = executor().maximumPoolSize
+        val barrier = CyclicBarrier(threads + 1)
+        val tasks = (1..threads).map {
+            executor().submit(Callable { barrier.await(TIMEOUT_SECONDS, TimeUnit.SECONDS) })
+        }
+        barrier.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+        tasks.forEach { it.get() }
+    }
+
+    /**
+     * run [block] while the tasks submitted meanwhile can't start.
+     */
+    @JvmStatic
+    fun <T> hold(block: () -> T): T {
+        val release = CountDownLatch(1)
+        repeat(executor().maximumPoolSize) {
+            executor().submit(Callable { release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS) })
+        }
+        try {
+            return block()
+        } finally {
+            release.countDown()
+        }
+    }
+}